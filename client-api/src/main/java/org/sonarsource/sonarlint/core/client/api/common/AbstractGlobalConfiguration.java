@@ -39,11 +39,13 @@ public abstract class AbstractGlobalConfiguration {
   private final LogOutput logOutput;
   private final Path sonarLintUserHome;
   private final Path workDir;
+  private final boolean unversionedContentsOnDisk;
 
   public AbstractGlobalConfiguration(AbstractBuilder<?> builder) {
     this.sonarLintUserHome = builder.sonarlintUserHome != null ? builder.sonarlintUserHome : findHome();
     this.workDir = builder.workDir != null ? builder.workDir : this.sonarLintUserHome.resolve(DEFAULT_WORK_DIR);
     this.logOutput = builder.logOutput;
+    this.unversionedContentsOnDisk = builder.unversionedContentsOnDisk;
   }
 
   public Path getSonarLintUserHome() {
@@ -54,6 +56,13 @@ public abstract class AbstractGlobalConfiguration {
     return workDir;
   }
 
+  /**
+   * @see AbstractBuilder#setUnversionedContentsOnDisk(boolean)
+   */
+  public boolean isUnversionedContentsOnDisk() {
+    return unversionedContentsOnDisk;
+  }
+
   @CheckForNull
   public LogOutput getLogOutput() {
     return logOutput;
@@ -72,6 +81,7 @@ public abstract class AbstractGlobalConfiguration {
     private LogOutput logOutput;
     private Path sonarlintUserHome;
     private Path workDir;
+    private boolean unversionedContentsOnDisk;
 
     public G setLogOutput(@Nullable LogOutput logOutput) {
       this.logOutput = logOutput;
@@ -94,6 +104,17 @@ public abstract class AbstractGlobalConfiguration {
       return (G) this;
     }
 
+    /**
+     * Declare that the contents of input files without version are always the ones of the file on disk, so that data computed from them
+     * can be reused while the size and last modification date of the file don't change. Default is false: data of such files are computed
+     * again by each analysis.
+     * @see org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile#contentVersion()
+     */
+    public G setUnversionedContentsOnDisk(boolean unversionedContentsOnDisk) {
+      this.unversionedContentsOnDisk = unversionedContentsOnDisk;
+      return (G) this;
+    }
+
   }
 
 }
@@ -19,7 +19,9 @@
  */
 package org.sonarsource.sonarlint.core.client.api.common.analysis;
 
+import java.time.Duration;
 import java.util.Collection;
+import javax.annotation.CheckForNull;
 
 public interface AnalysisResults {
 
@@ -35,4 +37,20 @@ public interface AnalysisResults {
    */
   Collection<ClientInputFile> failedAnalysisFiles();
 
+  /**
+   * Duration of the analysis predicted from the analysis costs of the previous ones. Only known when files are analyzed in partitions.
+   */
+  @CheckForNull
+  default Duration predictedDuration() {
+    return null;
+  }
+
+  /**
+   * Actual duration of the analysis. Only known when files are analyzed in partitions.
+   */
+  @CheckForNull
+  default Duration actualDuration() {
+    return null;
+  }
+
 }
@@ -57,6 +57,18 @@ public interface ClientInputFile {
     return null;
   }
 
+  /**
+   * Version of the contents of the file, that must change each time the contents change. Data computed from the contents are reused
+   * by the next analyses as long as the version is the same. If null, they are computed again by each analysis, unless the client declared
+   * that contents are the ones of the file on disk.
+   * @see org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration.AbstractBuilder#setUnversionedContentsOnDisk(boolean)
+   * @since 2.15
+   */
+  @CheckForNull
+  default String contentVersion() {
+    return null;
+  }
+
   /**
    * Allow clients to pass their own object to ease mapping of issues.
    */
@@ -0,0 +1,43 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+/**
+ * Statistics of the cache of file metadata (lines and line offsets) shared by the analyses of an engine.
+ * @since 2.15
+ */
+public interface FileMetadataCacheStats {
+
+  /**
+   * Number of times the metadata of a file were reused.
+   */
+  long getHitCount();
+
+  /**
+   * Number of times the metadata of a file had to be computed.
+   */
+  long getMissCount();
+
+  /**
+   * Number of files currently in the cache.
+   */
+  int getSize();
+
+}
@@ -28,6 +28,8 @@ import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.FileMetadataCacheStats;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
@@ -81,6 +83,15 @@ public interface ConnectedSonarLintEngine {
    */
   List<ServerIssue> getServerIssues(String moduleKey, String filePath);
 
+  /**
+   * Gets locally stored server issues for several files of a module. 
+   * @param moduleKey to which the project is bound (must have been previously updated with {@link #updateModule(ServerConfiguration,String)})
+   * @param filePaths relative to the module to which the moduleKey refers.
+   * @return All server issues in the local storage, by file path. If a file has no issues, it is mapped to an empty list.
+   * @since 2.15
+   */
+  Map<String, List<ServerIssue>> getServerIssues(String moduleKey, Collection<String> filePaths);
+
   /**
    * Get information about current global storage state
    * @return null if storage was never updated
@@ -160,10 +171,42 @@ public interface ConnectedSonarLintEngine {
    */
   void downloadServerIssues(ServerConfiguration serverConfig, String moduleKey);
 
+  /**
+   * Downloads and stores server issues for several files of a module, with a single request for the whole module,
+   * and returns them by file.
+   * Prefer {@link #downloadServerIssues(ServerConfiguration, String, String)} for a single file.
+   * @param moduleKey to which the project is bound (must have been previously updated with {@link #updateModule(ServerConfiguration,String)})
+   * @param filePaths relative to the module to which the moduleKey refers.
+   * @return All server issues in the local storage, by file path. If a file has no issues, it is mapped to an empty list.
+   * @since 2.15
+   * @throws DownloadException if it fails to download
+   */
+  Map<String, List<ServerIssue>> downloadServerIssues(ServerConfiguration serverConfig, String moduleKey, Collection<String> filePaths);
+
   /**
    * Get information about the analyzers that are currently loaded.
    * Should only be called when engine is started.
    */
   Collection<LoadedAnalyzer> getLoadedAnalyzers();
 
+  /**
+   * Forget the metadata of the given files computed by previous analyses, so that they are computed again by the next analysis.
+   * Needed only when the contents of a file changed without changing its size and last modification date, or its {@link ClientInputFile#contentVersion()}.
+   * @param filePaths absolute paths, as returned by {@link ClientInputFile#getPath()}
+   * @since 2.15
+   */
+  void invalidateFileMetadata(Collection<String> filePaths);
+
+  /**
+   * Forget the metadata of all files computed by previous analyses.
+   * @since 2.15
+   */
+  void invalidateAllFileMetadata();
+
+  /**
+   * Statistics of the cache of file metadata computed by analyses.
+   * @since 2.15
+   */
+  FileMetadataCacheStats getFileMetadataCacheStats();
+
 }
@@ -19,9 +19,12 @@
  */
 package org.sonarsource.sonarlint.core.client.api.standalone;
 
+import java.util.Collection;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.FileMetadataCacheStats;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 
@@ -50,4 +53,24 @@ public interface StandaloneSonarLintEngine {
 
   AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput);
 
+  /**
+   * Forget the metadata of the given files computed by previous analyses, so that they are computed again by the next analysis.
+   * Needed only when the contents of a file changed without changing its size and last modification date, or its {@link ClientInputFile#contentVersion()}.
+   * @param filePaths absolute paths, as returned by {@link ClientInputFile#getPath()}
+   * @since 2.15
+   */
+  void invalidateFileMetadata(Collection<String> filePaths);
+
+  /**
+   * Forget the metadata of all files computed by previous analyses.
+   * @since 2.15
+   */
+  void invalidateAllFileMetadata();
+
+  /**
+   * Statistics of the cache of file metadata computed by analyses.
+   * @since 2.15
+   */
+  FileMetadataCacheStats getFileMetadataCacheStats();
+
 }
@@ -33,6 +33,7 @@ import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.FileMetadataCacheStats;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
@@ -50,6 +51,7 @@ import org.sonarsource.sonarlint.core.client.api.connected.UpdateResult;
 import org.sonarsource.sonarlint.core.client.api.exceptions.GlobalUpdateRequiredException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadataCache;
 import org.sonarsource.sonarlint.core.container.connected.ConnectedContainer;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainer;
 import org.sonarsource.sonarlint.core.log.SonarLintLogging;
@@ -280,6 +282,14 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     });
   }
 
+  @Override
+  public Map<String, List<ServerIssue>> getServerIssues(String moduleKey, Collection<String> filePaths) {
+    return withReadLock(() -> {
+      checkUpdateStatus();
+      return getGlobalContainer().getServerIssues(moduleKey, filePaths);
+    });
+  }
+
   @Override
   public List<ServerIssue> downloadServerIssues(ServerConfiguration serverConfig, String moduleKey, String filePath) {
     return withRwLock(() -> {
@@ -297,6 +307,14 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     });
   }
 
+  @Override
+  public Map<String, List<ServerIssue>> downloadServerIssues(ServerConfiguration serverConfig, String moduleKey, Collection<String> filePaths) {
+    return withRwLock(() -> {
+      checkUpdateStatus();
+      return getGlobalContainer().downloadServerIssues(serverConfig, moduleKey, filePaths);
+    });
+  }
+
   @Override
   public void updateModule(ServerConfiguration serverConfig, String moduleKey, @Nullable ProgressMonitor monitor) {
     checkNotNull(serverConfig);
@@ -322,6 +340,28 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     }
   }
 
+  @Override
+  public void invalidateFileMetadata(Collection<String> filePaths) {
+    checkNotNull(filePaths);
+    withReadLock(() -> {
+      getGlobalContainer().getComponentByType(FileMetadataCache.class).invalidate(filePaths);
+      return null;
+    });
+  }
+
+  @Override
+  public void invalidateAllFileMetadata() {
+    withReadLock(() -> {
+      getGlobalContainer().getComponentByType(FileMetadataCache.class).invalidateAll();
+      return null;
+    });
+  }
+
+  @Override
+  public FileMetadataCacheStats getFileMetadataCacheStats() {
+    return withReadLock(() -> getGlobalContainer().getComponentByType(FileMetadataCache.class).getStats());
+  }
+
   @Override
   public ModuleStorageStatus getModuleStorageStatus(String moduleKey) {
     checkNotNull(moduleKey);
@@ -19,17 +19,20 @@
  */
 package org.sonarsource.sonarlint.core;
 
+import java.util.Collection;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.FileMetadataCacheStats;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadataCache;
 import org.sonarsource.sonarlint.core.container.standalone.StandaloneGlobalContainer;
 import org.sonarsource.sonarlint.core.log.SonarLintLogging;
 import org.sonarsource.sonarlint.core.util.LoggedErrorHandler;
@@ -103,6 +106,37 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
     }
   }
 
+  @Override
+  public void invalidateFileMetadata(Collection<String> filePaths) {
+    checkNotNull(filePaths);
+    rwl.readLock().lock();
+    try {
+      globalContainer.getComponentByType(FileMetadataCache.class).invalidate(filePaths);
+    } finally {
+      rwl.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void invalidateAllFileMetadata() {
+    rwl.readLock().lock();
+    try {
+      globalContainer.getComponentByType(FileMetadataCache.class).invalidateAll();
+    } finally {
+      rwl.readLock().unlock();
+    }
+  }
+
+  @Override
+  public FileMetadataCacheStats getFileMetadataCacheStats() {
+    rwl.readLock().lock();
+    try {
+      return globalContainer.getComponentByType(FileMetadataCache.class).getStats();
+    } finally {
+      rwl.readLock().unlock();
+    }
+  }
+
   private void setLogging(@Nullable LogOutput logOutput) {
     if (logOutput != null) {
       SonarLintLogging.set(logOutput);
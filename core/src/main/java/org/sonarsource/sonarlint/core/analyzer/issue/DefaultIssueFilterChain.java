@@ -19,34 +19,44 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.issue;
 
-import com.google.common.collect.ImmutableList;
-import java.util.List;
+import javax.annotation.CheckForNull;
 import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 
+/**
+ * Links are created once, so the chain can be reused for any number of issues without allocating.
+ */
 public class DefaultIssueFilterChain implements IssueFilterChain {
-  private final List<IssueFilter> filters;
+  @CheckForNull
+  private final IssueFilter filter;
+  @CheckForNull
+  private final DefaultIssueFilterChain next;
 
   public DefaultIssueFilterChain(IssueFilter... filters) {
-    this.filters = ImmutableList.copyOf(filters);
+    this(filters, 0);
   }
 
   public DefaultIssueFilterChain() {
-    this.filters = ImmutableList.of();
+    this(new IssueFilter[0], 0);
   }
 
-  private DefaultIssueFilterChain(List<IssueFilter> filters) {
-    this.filters = filters;
+  private DefaultIssueFilterChain(IssueFilter[] filters, int index) {
+    if (index < filters.length) {
+      this.filter = filters[index];
+      this.next = new DefaultIssueFilterChain(filters, index + 1);
+    } else {
+      this.filter = null;
+      this.next = null;
+    }
   }
 
   @Override
   public boolean accept(FilterableIssue issue) {
-    if (filters.isEmpty()) {
+    if (filter == null) {
       return true;
-    } else {
-      return filters.get(0).accept(issue, new DefaultIssueFilterChain(filters.subList(1, filters.size())));
     }
+    return filter.accept(issue, next);
   }
 
 }
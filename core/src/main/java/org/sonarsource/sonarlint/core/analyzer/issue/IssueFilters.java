@@ -24,7 +24,6 @@ import org.sonar.api.issue.Issue;
 import org.sonar.api.resources.Project;
 import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
-import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
 @SonarLintSide
@@ -32,11 +31,15 @@ public class IssueFilters {
   private final IssueFilter[] filters;
   private final org.sonar.api.issue.batch.IssueFilter[] deprecatedFilters;
   private final Project project;
+  private final DefaultIssueFilterChain filterChain;
+  private final DeprecatedIssueFilterChain deprecatedFilterChain;
 
   public IssueFilters(Project project, IssueFilter[] exclusionFilters, org.sonar.api.issue.batch.IssueFilter[] filters) {
     this.project = project;
     this.filters = exclusionFilters;
     this.deprecatedFilters = filters;
+    this.filterChain = new DefaultIssueFilterChain(exclusionFilters);
+    this.deprecatedFilterChain = new DeprecatedIssueFilterChain(filters);
   }
 
   public IssueFilters(Project project, IssueFilter[] filters) {
@@ -52,17 +55,21 @@ public class IssueFilters {
   }
 
   public boolean accept(InputComponent inputComponent, DefaultClientIssue rawIssue) {
-    IssueFilterChain filterChain = new DefaultIssueFilterChain(filters);
-    FilterableIssue fIssue = new DefaultFilterableIssue(project, rawIssue, inputComponent);
-    if (filterChain.accept(fIssue)) {
-      return acceptDeprecated(inputComponent.key(), rawIssue);
+    if (filters.length > 0) {
+      FilterableIssue fIssue = new DefaultFilterableIssue(project, rawIssue, inputComponent);
+      if (!filterChain.accept(fIssue)) {
+        return false;
+      }
     }
-
-    return false;
+    return acceptDeprecated(inputComponent.key(), rawIssue);
   }
 
   public boolean acceptDeprecated(String componentKey, DefaultClientIssue rawIssue) {
+    if (deprecatedFilters.length == 0) {
+      // no need to wrap the issue if nobody is going to look at it
+      return true;
+    }
     Issue issue = new DeprecatedIssueAdapterForFilter(project, rawIssue, componentKey);
-    return new DeprecatedIssueFilterChain(deprecatedFilters).accept(issue);
+    return deprecatedFilterChain.accept(issue);
   }
 }
@@ -23,12 +23,22 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.ClassUtils;
 import org.sonar.api.batch.CheckProject;
@@ -40,6 +50,7 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.dag.DirectAcyclicGraph;
+import org.sonarsource.sonarlint.core.analyzer.sensor.ExtensionMetadataCache.AnnotatedDependencies;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.global.ExtensionMatcher;
 
@@ -48,11 +59,18 @@ public class BatchExtensionDictionnary {
   private final ComponentContainer componentContainer;
   private final SensorContext sensorContext;
   private final SensorOptimizer sensorOptimizer;
+  private final ExtensionMetadataCache metadataCache;
 
   public BatchExtensionDictionnary(ComponentContainer componentContainer, DefaultSensorContext sensorContext, SensorOptimizer sensorOptimizer) {
+    this(componentContainer, sensorContext, sensorOptimizer, new ExtensionMetadataCache());
+  }
+
+  public BatchExtensionDictionnary(ComponentContainer componentContainer, DefaultSensorContext sensorContext, SensorOptimizer sensorOptimizer,
+    ExtensionMetadataCache metadataCache) {
     this.componentContainer = componentContainer;
     this.sensorContext = sensorContext;
     this.sensorOptimizer = sensorOptimizer;
+    this.metadataCache = metadataCache;
   }
 
   public <T> Collection<T> select(Class<T> type, @Nullable Project project, boolean sort, @Nullable ExtensionMatcher matcher) {
@@ -63,14 +81,19 @@ public class BatchExtensionDictionnary {
     return result;
   }
 
-  private static Phase.Name evaluatePhase(Object extension) {
-    Object extensionToEvaluate;
+  private Phase.Name evaluatePhase(Object extension) {
+    return metadataCache.phase(classToEvaluate(extension), BatchExtensionDictionnary::readPhase);
+  }
+
+  private static Class<?> classToEvaluate(Object extension) {
     if (extension instanceof SensorWrapper) {
-      extensionToEvaluate = ((SensorWrapper) extension).wrappedSensor();
-    } else {
-      extensionToEvaluate = extension;
+      return ((SensorWrapper) extension).wrappedSensor().getClass();
     }
-    Phase phaseAnnotation = AnnotationUtils.getAnnotation(extensionToEvaluate, Phase.class);
+    return extension.getClass();
+  }
+
+  private static Phase.Name readPhase(Class<?> extensionClass) {
+    Phase phaseAnnotation = AnnotationUtils.getAnnotation(extensionClass, Phase.class);
     if (phaseAnnotation != null) {
       return phaseAnnotation.name();
     }
@@ -113,24 +136,118 @@ public class BatchExtensionDictionnary {
   }
 
   public <T> Collection<T> sort(Collection<T> extensions) {
+    List<T> toSort = new ArrayList<>(extensions);
+    List<Object> key = sortKey(toSort);
+    int[] order = key != null ? metadataCache.sortOrder(key) : null;
+    if (order != null) {
+      List<T> sorted = new ArrayList<>(order.length);
+      for (int position : order) {
+        sorted.add(toSort.get(position));
+      }
+      return sorted;
+    }
+
+    List<T> sorted = sortByDependencies(toSort);
+    if (key != null) {
+      int[] positions = positions(toSort, sorted);
+      if (positions != null) {
+        metadataCache.putSortOrder(key, positions);
+      }
+    }
+    return sorted;
+  }
+
+  private <T> List<T> sortByDependencies(List<T> extensions) {
     DirectAcyclicGraph dag = new DirectAcyclicGraph();
 
     for (T extension : extensions) {
       dag.add(extension);
-      for (Object dependency : getDependencies(extension)) {
-        dag.add(extension, dependency);
-      }
-      for (Object generates : getDependents(extension)) {
-        dag.add(generates, extension);
-      }
-      completePhaseDependencies(dag, extension);
+      visitDependencies(extension, (from, to) -> dag.add(from, to));
     }
     List<T> sortedList = dag.sort();
+    Set<T> candidates = new HashSet<>(extensions);
     return sortedList.stream()
-      .filter(extensions::contains)
+      .filter(candidates::contains)
       .collect(Collectors.toList());
   }
 
+  /**
+   * When dependencies are only declared by class annotations, the sort order only depends on the classes of the extensions.
+   * Returns null when an extension declares dependencies with annotated methods.
+   */
+  @CheckForNull
+  private List<Object> sortKey(List<?> extensions) {
+    List<Object> key = new ArrayList<>(extensions.size());
+    for (Object extension : extensions) {
+      Class<?> extensionClass = extension.getClass();
+      if (annotatedDependencies(extensionClass, DependsUpon.class).hasMethods() || annotatedDependencies(extensionClass, DependedUpon.class).hasMethods()) {
+        return null;
+      }
+      key.add(Arrays.asList(extensionClass, classToEvaluate(extension)));
+    }
+    return key;
+  }
+
+  @CheckForNull
+  private static int[] positions(List<?> extensions, List<?> sorted) {
+    Map<Object, Integer> positionByExtension = new IdentityHashMap<>();
+    for (int i = extensions.size() - 1; i >= 0; i--) {
+      positionByExtension.put(extensions.get(i), i);
+    }
+    int[] positions = new int[sorted.size()];
+    for (int i = 0; i < positions.length; i++) {
+      Integer position = positionByExtension.get(sorted.get(i));
+      if (position == null) {
+        return null;
+      }
+      positions[i] = position;
+    }
+    return positions;
+  }
+
+  /**
+   * For each extension, the other extensions of the collection that {@link #sort(Collection)} places before it because it depends upon them,
+   * directly or through dependencies on other objects (phases, metrics, ...).
+   */
+  public <T> Map<T, Set<T>> upstreamExtensions(Collection<T> extensions) {
+    Map<Object, Set<Object>> edges = new HashMap<>();
+    for (T extension : extensions) {
+      visitDependencies(extension, (from, to) -> edges.computeIfAbsent(from, k -> new HashSet<>()).add(to));
+    }
+
+    Set<T> candidates = new HashSet<>(extensions);
+    Map<T, Set<T>> result = new HashMap<>();
+    for (T extension : extensions) {
+      Set<T> upstream = new HashSet<>();
+      Set<Object> visited = new HashSet<>();
+      Deque<Object> toVisit = new ArrayDeque<>(edges.getOrDefault(extension, Collections.emptySet()));
+      while (!toVisit.isEmpty()) {
+        Object node = toVisit.pop();
+        if (visited.add(node)) {
+          if (candidates.contains(node) && !node.equals(extension)) {
+            upstream.add((T) node);
+          }
+          toVisit.addAll(edges.getOrDefault(node, Collections.emptySet()));
+        }
+      }
+      result.put(extension, upstream);
+    }
+    return result;
+  }
+
+  /**
+   * Feeds the edges "from depends upon to" declared by the extension.
+   */
+  private <T> void visitDependencies(T extension, BiConsumer<Object, Object> edgeConsumer) {
+    for (Object dependency : getDependencies(extension)) {
+      edgeConsumer.accept(extension, dependency);
+    }
+    for (Object generates : getDependents(extension)) {
+      edgeConsumer.accept(generates, extension);
+    }
+    completePhaseDependencies(edgeConsumer, extension);
+  }
+
   /**
    * Extension dependencies
    */
@@ -149,34 +266,54 @@ public class BatchExtensionDictionnary {
     return result;
   }
 
-  private static void completePhaseDependencies(DirectAcyclicGraph dag, Object extension) {
+  private void completePhaseDependencies(BiConsumer<Object, Object> edgeConsumer, Object extension) {
     Phase.Name phase = evaluatePhase(extension);
-    dag.add(extension, phase);
+    edgeConsumer.accept(extension, phase);
     for (Phase.Name name : Phase.Name.values()) {
       if (phase.compareTo(name) < 0) {
-        dag.add(name, extension);
+        edgeConsumer.accept(name, extension);
       } else if (phase.compareTo(name) > 0) {
-        dag.add(extension, name);
+        edgeConsumer.accept(extension, name);
       }
     }
   }
 
   protected List<Object> evaluateAnnotatedClasses(Object extension, Class<? extends Annotation> annotation) {
+    AnnotatedDependencies dependencies = annotatedDependencies(extension.getClass(), annotation);
     List<Object> results = new ArrayList<>();
-    Class aClass = extension.getClass();
+    for (int level = 0; level < dependencies.depth(); level++) {
+      results.addAll(dependencies.values(level));
+      for (Method method : dependencies.methods(level)) {
+        evaluateMethod(extension, method, results);
+      }
+    }
+    return results;
+  }
+
+  private AnnotatedDependencies annotatedDependencies(Class<?> extensionClass, Class<? extends Annotation> annotation) {
+    return metadataCache.dependencies(extensionClass, annotation, c -> readAnnotatedDependencies(c, annotation));
+  }
+
+  private static AnnotatedDependencies readAnnotatedDependencies(Class<?> extensionClass, Class<? extends Annotation> annotation) {
+    List<List<Object>> values = new ArrayList<>();
+    List<List<Method>> methods = new ArrayList<>();
+    Class aClass = extensionClass;
     while (aClass != null) {
-      evaluateClass(aClass, annotation, results);
+      List<Object> classValues = new ArrayList<>();
+      evaluateClass(aClass, annotation, classValues);
+      values.add(classValues);
 
+      List<Method> annotatedMethods = new ArrayList<>();
       for (Method method : aClass.getDeclaredMethods()) {
         if (method.getAnnotation(annotation) != null) {
           checkAnnotatedMethod(method);
-          evaluateMethod(extension, method, results);
+          annotatedMethods.add(method);
         }
       }
+      methods.add(annotatedMethods);
       aClass = aClass.getSuperclass();
     }
-
-    return results;
+    return new AnnotatedDependencies(values, methods);
   }
 
   private static void evaluateClass(Class extensionClass, Class annotationClass, List<Object> results) {
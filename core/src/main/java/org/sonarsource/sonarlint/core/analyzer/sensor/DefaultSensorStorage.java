@@ -20,8 +20,10 @@
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
 import com.google.common.base.Strings;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -36,6 +38,7 @@ import org.sonar.api.batch.sensor.error.AnalysisError;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.IssueLocation;
 import org.sonar.api.batch.sensor.measure.Measure;
 import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
 import org.sonar.api.rule.RuleKey;
@@ -50,18 +53,34 @@ import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 
 public class DefaultSensorStorage implements SensorStorage {
 
-  private final ActiveRules activeRules;
   private final Rules rules;
   private final IssueFilters filters;
   private final IssueListener issueListener;
   private final DefaultAnalysisResult analysisResult;
+  private final Map<RuleKey, ResolvedRule> resolvedRules;
+  // sensors may be executed by several threads, see SensorsExecutor
+  private final Object reportLock = new Object();
 
   public DefaultSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
-    this.activeRules = activeRules;
     this.rules = rules;
     this.filters = filters;
     this.issueListener = issueListener;
     this.analysisResult = analysisResult;
+    this.resolvedRules = resolveActiveRules(activeRules, rules);
+  }
+
+  /**
+   * Rules and active rules don't change during an analysis, so resolve them once rather than for every issue.
+   */
+  private static Map<RuleKey, ResolvedRule> resolveActiveRules(ActiveRules activeRules, Rules rules) {
+    Map<RuleKey, ResolvedRule> result = new HashMap<>();
+    for (ActiveRule activeRule : activeRules.findAll()) {
+      Rule rule = rules.find(activeRule.ruleKey());
+      if (rule != null) {
+        result.put(activeRule.ruleKey(), new ResolvedRule(activeRule, (DefaultRule) rule));
+      }
+    }
+    return result;
   }
 
   @Override
@@ -71,37 +90,47 @@ public class DefaultSensorStorage implements SensorStorage {
 
   @Override
   public void store(Issue issue) {
-    InputComponent inputComponent = issue.primaryLocation().inputComponent();
-
-    DefaultRule rule = validateRule(issue);
-    ActiveRule activeRule = activeRules.find(issue.ruleKey());
-    if (activeRule == null) {
-      // rule does not exist or is not enabled -> ignore the issue
+    ResolvedRule resolved = resolvedRules.get(issue.ruleKey());
+    if (resolved == null) {
+      validateRule(issue);
+      // rule is not enabled -> ignore the issue
       return;
     }
 
-    String primaryMessage = Strings.isNullOrEmpty(issue.primaryLocation().message()) ? rule.name() : issue.primaryLocation().message();
+    IssueLocation primaryLocation = issue.primaryLocation();
+    String message = primaryLocation.message();
+    if (Strings.isNullOrEmpty(message)) {
+      if (resolved.defaultMessage == null) {
+        throw noMessage(issue.ruleKey());
+      }
+      message = resolved.defaultMessage;
+    }
     org.sonar.api.batch.rule.Severity overriddenSeverity = issue.overriddenSeverity();
-    String severity = overriddenSeverity != null ? overriddenSeverity.name() : activeRule.severity();
-    String type = rule.type();
+    String severity = overriddenSeverity != null ? overriddenSeverity.name() : resolved.severity;
 
-    DefaultClientIssue newIssue = new DefaultClientIssue(severity, type, activeRule, rules.find(activeRule.ruleKey()), primaryMessage, issue.primaryLocation().textRange(),
+    InputComponent inputComponent = primaryLocation.inputComponent();
+    DefaultClientIssue newIssue = new DefaultClientIssue(severity, resolved.type, resolved.activeRule, resolved.rule, message, primaryLocation.textRange(),
       inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, issue.flows());
     if (filters.accept(inputComponent, newIssue)) {
-      issueListener.handle(newIssue);
+      synchronized (reportLock) {
+        issueListener.handle(newIssue);
+      }
     }
   }
 
-  private DefaultRule validateRule(Issue issue) {
+  private void validateRule(Issue issue) {
     RuleKey ruleKey = issue.ruleKey();
     Rule rule = rules.find(ruleKey);
     if (rule == null) {
       throw MessageException.of(String.format("The rule '%s' does not exist.", ruleKey));
     }
     if (Strings.isNullOrEmpty(rule.name()) && Strings.isNullOrEmpty(issue.primaryLocation().message())) {
-      throw MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", ruleKey));
+      throw noMessage(ruleKey);
     }
-    return (DefaultRule) rule;
+  }
+
+  private static MessageException noMessage(RuleKey ruleKey) {
+    return MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", ruleKey));
   }
 
   @Override
@@ -131,7 +160,9 @@ public class DefaultSensorStorage implements SensorStorage {
   @Override
   public void store(AnalysisError analysisError) {
     ClientInputFile clientInputFile = ((SonarLintInputFile) analysisError.inputFile()).getClientInputFile();
-    analysisResult.addFailedAnalysisFile(clientInputFile);
+    synchronized (reportLock) {
+      analysisResult.addFailedAnalysisFile(clientInputFile);
+    }
   }
 
   @Override
@@ -139,4 +170,21 @@ public class DefaultSensorStorage implements SensorStorage {
     // NO-OP
   }
 
+  private static class ResolvedRule {
+    private final ActiveRule activeRule;
+    private final DefaultRule rule;
+    @CheckForNull
+    private final String defaultMessage;
+    private final String severity;
+    private final String type;
+
+    ResolvedRule(ActiveRule activeRule, DefaultRule rule) {
+      this.activeRule = activeRule;
+      this.rule = rule;
+      this.defaultMessage = Strings.emptyToNull(rule.name());
+      this.severity = activeRule.severity();
+      this.type = rule.type();
+    }
+  }
+
 }
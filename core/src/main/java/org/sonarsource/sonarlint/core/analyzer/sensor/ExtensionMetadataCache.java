@@ -0,0 +1,99 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.Phase;
+
+/**
+ * What {@link BatchExtensionDictionnary} reads by reflection on extension classes, and the sort orders it computes from it, shared by all
+ * the analyses of an engine. It lives in the global container, which is recreated when plugins change, so it never refers to the classes
+ * of plugins that are no longer loaded.
+ */
+public class ExtensionMetadataCache {
+  static final int MAX_SORT_ORDERS = 100;
+
+  private final Map<Class<? extends Annotation>, Map<Class<?>, AnnotatedDependencies>> dependencies = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Phase.Name> phases = new ConcurrentHashMap<>();
+  private final Map<List<Object>, int[]> sortOrders = new ConcurrentHashMap<>();
+
+  AnnotatedDependencies dependencies(Class<?> extensionClass, Class<? extends Annotation> annotation, Function<Class<?>, AnnotatedDependencies> loader) {
+    return dependencies.computeIfAbsent(annotation, a -> new ConcurrentHashMap<>()).computeIfAbsent(extensionClass, loader);
+  }
+
+  Phase.Name phase(Class<?> extensionClass, Function<Class<?>, Phase.Name> loader) {
+    return phases.computeIfAbsent(extensionClass, loader);
+  }
+
+  /**
+   * Positions, in the collection to sort, of the extensions in sorted order.
+   */
+  @CheckForNull
+  int[] sortOrder(List<Object> key) {
+    return sortOrders.get(key);
+  }
+
+  void putSortOrder(List<Object> key, int[] order) {
+    if (sortOrders.size() >= MAX_SORT_ORDERS) {
+      // selections vary with the languages of the analyzed files, there should be few of them
+      sortOrders.clear();
+    }
+    sortOrders.put(key, order);
+  }
+
+  /**
+   * Dependencies declared by an extension class with {@link org.sonar.api.batch.DependsUpon} or {@link org.sonar.api.batch.DependedUpon}.
+   * Values of class annotations are constant, but annotated methods have to be invoked on each extension.
+   */
+  static class AnnotatedDependencies {
+    // one element per class of the hierarchy, starting from the extension class
+    private final List<List<Object>> values;
+    private final List<List<Method>> methods;
+    private final boolean hasMethods;
+
+    AnnotatedDependencies(List<List<Object>> values, List<List<Method>> methods) {
+      this.values = values;
+      this.methods = methods;
+      this.hasMethods = methods.stream().anyMatch(m -> !m.isEmpty());
+    }
+
+    int depth() {
+      return values.size();
+    }
+
+    List<Object> values(int level) {
+      return values.get(level);
+    }
+
+    List<Method> methods(int level) {
+      return methods.get(level);
+    }
+
+    boolean hasMethods() {
+      return hasMethods;
+    }
+  }
+}
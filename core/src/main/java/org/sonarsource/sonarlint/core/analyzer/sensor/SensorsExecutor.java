@@ -20,8 +20,16 @@
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,26 +38,46 @@ import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.events.SensorsPhaseHandler;
 import org.sonar.api.batch.events.SensorsPhaseHandler.SensorsPhaseEvent;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
+import org.sonarsource.sonarlint.core.util.ConcurrentUtils;
 import org.sonarsource.sonarlint.core.util.StringUtils;
 
+/**
+ * Executes sensors in the order computed by {@link BatchExtensionDictionnary#sort(Collection)}.
+ * <p>
+ * When parallel execution is enabled, a sensor declared thread safe starts as soon as the sensors it depends upon are done, possibly while
+ * other sensors are running. Other sensors keep running alone, after every sensor that precedes them.
+ */
 @BatchSide
 public class SensorsExecutor {
 
+  /**
+   * Maximum number of sensors executed at the same time. Defaults to 1, which disables parallel execution.
+   */
+  public static final String PARALLELISM_PROPERTY = "sonarlint.sensors.parallelism";
+
+  /**
+   * Comma separated class names of the sensors that can be executed at the same time as other sensors.
+   */
+  public static final String THREAD_SAFE_SENSORS_PROPERTY = "sonarlint.sensors.threadSafe";
+
   private static final Logger LOG = LoggerFactory.getLogger(SensorsExecutor.class);
 
   private Project module;
   private BatchExtensionDictionnary selector;
   private SensorsPhaseHandler[] handlers;
+  private Settings settings;
 
-  public SensorsExecutor(BatchExtensionDictionnary selector, Project project) {
-    this(selector, project, new SensorsPhaseHandler[0]);
+  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, Settings settings) {
+    this(selector, project, new SensorsPhaseHandler[0], settings);
   }
 
-  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, SensorsPhaseHandler[] handlers) {
+  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, SensorsPhaseHandler[] handlers, Settings settings) {
     this.selector = selector;
     this.module = project;
     this.handlers = handlers;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
@@ -59,8 +87,13 @@ public class SensorsExecutor {
       h.onSensorsPhase(new DefaultSensorsPhaseEvent(sensors, true));
     }
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    int threads = Math.min(parallelism(), sensors.size());
+    if (threads <= 1) {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
+    } else {
+      executeInParallel(context, sensors, threads);
     }
 
     for (SensorsPhaseHandler h : handlers) {
@@ -68,11 +101,54 @@ public class SensorsExecutor {
     }
   }
 
+  private int parallelism() {
+    if (settings.hasKey(PARALLELISM_PROPERTY)) {
+      return settings.getInt(PARALLELISM_PROPERTY);
+    }
+    return 1;
+  }
+
+  private void executeInParallel(SensorContext context, Collection<Sensor> sensors, int threads) {
+    Set<String> threadSafeSensors = new HashSet<>(Arrays.asList(settings.getStringArray(THREAD_SAFE_SENSORS_PROPERTY)));
+    Map<Sensor, Set<Sensor>> upstreamSensors = selector.upstreamExtensions(sensors);
+    Map<Sensor, CompletableFuture<Void>> scheduled = new LinkedHashMap<>();
+
+    ExecutorService executor = ConcurrentUtils.newFixedDaemonThreadPool("sonarlint-sensor-", threads);
+    try {
+      for (Sensor sensor : sensors) {
+        if (threadSafeSensors.contains(sensorClass(sensor).getName())) {
+          CompletableFuture<?>[] upstream = upstreamSensors.get(sensor).stream()
+            .map(scheduled::get)
+            .toArray(CompletableFuture[]::new);
+          scheduled.put(sensor, CompletableFuture.allOf(upstream).thenRunAsync(() -> executeSensor(context, sensor), executor));
+        } else {
+          ConcurrentUtils.awaitAll(scheduled.values());
+          executeSensor(context, sensor);
+          scheduled.put(sensor, CompletableFuture.completedFuture(null));
+        }
+      }
+      ConcurrentUtils.awaitAll(scheduled.values());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Class<?> sensorClass(Sensor sensor) {
+    if (sensor instanceof SensorWrapper) {
+      return ((SensorWrapper) sensor).wrappedSensor().getClass();
+    }
+    return sensor.getClass();
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
     if (LOG.isDebugEnabled()) {
       LOG.debug("Execute Sensor: {}", StringUtils.describe(sensor));
     }
+    long start = System.nanoTime();
     sensor.analyse(module, context);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Sensor {} done: {} ms", StringUtils.describe(sensor), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
   }
 
   private static class DefaultSensorsPhaseEvent implements SensorsPhaseEvent {
@@ -19,19 +19,14 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis;
 
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.resources.Languages;
-import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.analyzer.issue.IssuableFactory;
 import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
-import org.sonarsource.sonarlint.core.analyzer.noop.NoOpFileLinesContextFactory;
-import org.sonarsource.sonarlint.core.analyzer.noop.NoOpHighlightableBuilder;
-import org.sonarsource.sonarlint.core.analyzer.noop.NoOpSymbolizableBuilder;
-import org.sonarsource.sonarlint.core.analyzer.noop.NoOpTestPlanBuilder;
-import org.sonarsource.sonarlint.core.analyzer.noop.NoOpTestableBuilder;
 import org.sonarsource.sonarlint.core.analyzer.perspectives.BatchPerspectives;
 import org.sonarsource.sonarlint.core.analyzer.sensor.BatchExtensionDictionnary;
 import org.sonarsource.sonarlint.core.analyzer.sensor.DefaultSensorContext;
@@ -43,7 +38,6 @@ import org.sonarsource.sonarlint.core.analyzer.sensor.SensorsExecutor;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultLanguagesRepository;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileIndexer;
-import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileBuilder;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputPathCache;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.LanguageDetection;
@@ -53,13 +47,17 @@ import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.IgnoreIssu
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueInclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
 
 public class AnalysisContainer extends ComponentContainer {
 
   private static final Logger LOG = Loggers.get(AnalysisContainer.class);
 
-  public AnalysisContainer(ComponentContainer globalContainer) {
-    super(globalContainer);
+  private final AnalysisContainerTemplate template;
+
+  public AnalysisContainer(AnalysisContainerTemplate template) {
+    super(template);
+    this.template = template;
   }
 
   @Override
@@ -72,18 +70,10 @@ public class AnalysisContainer extends ComponentContainer {
     add(
       new ProjectProvider(),
       new DefaultInputModule("sonarlint"),
-      NoOpFileLinesContextFactory.class,
 
       // temp
       new AnalysisTempFolderProvider(),
 
-      // file system
-      PathResolver.class,
-
-      // tests
-      NoOpTestPlanBuilder.class,
-      NoOpTestableBuilder.class,
-
       // lang
       Languages.class,
       DefaultLanguagesRepository.class,
@@ -95,7 +85,6 @@ public class AnalysisContainer extends ComponentContainer {
       // file system
       InputPathCache.class,
       InputFileBuilder.class,
-      FileMetadata.class,
       LanguageDetection.class,
       FileIndexer.class,
       SonarLintFileSystem.class,
@@ -123,10 +112,16 @@ public class AnalysisContainer extends ComponentContainer {
       IssuableFactory.class,
       org.sonar.api.issue.NoSonarFilter.class,
 
-      // Perspectives
-      BatchPerspectives.class,
-      NoOpHighlightableBuilder.class,
-      NoOpSymbolizableBuilder.class);
+      // Perspectives, also built by the no-op builders of the template
+      BatchPerspectives.class);
+  }
+
+  @Override
+  public void declareExtension(@Nullable PluginInfo pluginInfo, Object extension) {
+    // instances are always declared, they can be property definitions themselves
+    if (!(extension instanceof Class) || template.declareOnce((Class<?>) extension)) {
+      super.declareExtension(pluginInfo, extension);
+    }
   }
 
   private void addPluginExtensions() {
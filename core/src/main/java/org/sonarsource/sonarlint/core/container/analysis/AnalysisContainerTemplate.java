@@ -0,0 +1,80 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonarsource.sonarlint.core.analyzer.noop.NoOpFileLinesContextFactory;
+import org.sonarsource.sonarlint.core.analyzer.noop.NoOpHighlightableBuilder;
+import org.sonarsource.sonarlint.core.analyzer.noop.NoOpSymbolizableBuilder;
+import org.sonarsource.sonarlint.core.analyzer.noop.NoOpTestPlanBuilder;
+import org.sonarsource.sonarlint.core.analyzer.noop.NoOpTestableBuilder;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
+
+/**
+ * Parent of the analysis containers, kept by the global container as long as the same plugins are loaded.
+ * <p>
+ * It holds the analysis components that are stateless and only depend on the global container, so that they are instantiated once
+ * instead of for each analysis. It also remembers which component classes already declared their properties, as property definitions
+ * are shared by all the containers.
+ * <p>
+ * Most analysis components can't be shared: they depend on the settings, active rules or files of the analysis, directly or through
+ * plugin extensions like languages. Plugin extensions are registered by each analysis container for the same reason.
+ */
+public class AnalysisContainerTemplate extends ComponentContainer {
+
+  private static final Class<?>[] SHARED_COMPONENTS = {
+    NoOpFileLinesContextFactory.class,
+    PathResolver.class,
+    FileMetadata.class,
+    NoOpTestPlanBuilder.class,
+    NoOpTestableBuilder.class,
+    NoOpHighlightableBuilder.class,
+    NoOpSymbolizableBuilder.class
+  };
+
+  private final Set<Class<?>> declaredClasses = ConcurrentHashMap.newKeySet();
+
+  public AnalysisContainerTemplate(ComponentContainer globalContainer) {
+    super(globalContainer);
+  }
+
+  @Override
+  protected void doBeforeStart() {
+    add((Object[]) SHARED_COMPONENTS);
+  }
+
+  @Override
+  protected void doAfterStart() {
+    // instantiated now, rather than by the first analyses that could run concurrently
+    for (Class<?> component : SHARED_COMPONENTS) {
+      getComponentByType(component);
+    }
+  }
+
+  /**
+   * @return true the first time it is called for the given class
+   */
+  boolean declareOnce(Class<?> componentClass) {
+    return declaredClasses.add(componentClass);
+  }
+}
@@ -33,24 +33,25 @@ public class ExclusionFilters {
 
   private final FileExclusions exclusionSettings;
 
-  private PathPattern[] mainInclusions;
-  private PathPattern[] mainExclusions;
-  private PathPattern[] testInclusions;
-  private PathPattern[] testExclusions;
+  private PathPatternIndex<PathPattern> mainInclusions;
+  private PathPatternIndex<PathPattern> mainExclusions;
+  private PathPatternIndex<PathPattern> testInclusions;
+  private PathPatternIndex<PathPattern> testExclusions;
 
   public ExclusionFilters(ServerSettingsProvider serverSettingsProvider) {
     this.exclusionSettings = new FileExclusions(serverSettingsProvider.getServerSettings());
   }
 
   public void prepare() {
-    mainInclusions = prepareMainInclusions();
-    mainExclusions = prepareMainExclusions();
-    testInclusions = prepareTestInclusions();
-    testExclusions = prepareTestExclusions();
-    log("Included sources: ", mainInclusions);
-    log("Excluded sources: ", mainExclusions);
-    log("Included tests: ", testInclusions);
-    log("Excluded tests: ", testExclusions);
+    mainInclusions = prepare("Included sources: ", prepareMainInclusions());
+    mainExclusions = prepare("Excluded sources: ", prepareMainExclusions());
+    testInclusions = prepare("Included tests: ", prepareTestInclusions());
+    testExclusions = prepare("Excluded tests: ", prepareTestExclusions());
+  }
+
+  private static PathPatternIndex<PathPattern> prepare(String title, PathPattern[] patterns) {
+    log(title, patterns);
+    return PathPatternIndex.of(patterns);
   }
 
   private static void log(String title, PathPattern[] patterns) {
@@ -63,8 +64,8 @@ public class ExclusionFilters {
   }
 
   public boolean accept(InputFile inputFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
+    PathPatternIndex<PathPattern> inclusionPatterns;
+    PathPatternIndex<PathPattern> exclusionPatterns;
     if (InputFile.Type.MAIN == type) {
       inclusionPatterns = mainInclusions;
       exclusionPatterns = mainExclusions;
@@ -75,23 +76,10 @@ public class ExclusionFilters {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(inputFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
-    }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(inputFile)) {
-          return false;
-        }
-      }
+    if (!inclusionPatterns.isEmpty() && !inclusionPatterns.matchesAny(inputFile)) {
+      return false;
     }
-    return true;
+    return !exclusionPatterns.matchesAny(inputFile);
   }
 
   PathPattern[] prepareMainInclusions() {
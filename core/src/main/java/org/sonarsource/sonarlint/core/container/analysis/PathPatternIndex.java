@@ -0,0 +1,209 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.PathPattern;
+
+/**
+ * Path patterns indexed by the text that paths must end and start with to match them, so that matching a file only evaluates the few
+ * patterns that can match it.
+ * <p>
+ * In a pattern, only '*' and '?' are wildcards: a path can only match if it ends with the text after the last wildcard, and starts with
+ * the text before the first one. Candidates are then matched with {@link PathPattern#match(InputFile)}, so results are the same as matching
+ * all patterns.
+ */
+public class PathPatternIndex<T> {
+
+  private static final String ABSOLUTE_PATH_PATTERN_PREFIX = "file:";
+  private static final String WILDCARDS = "*?";
+
+  private final Index<T> absolutePathIndex = new Index<>();
+  private final Index<T> relativePathIndex = new Index<>();
+  private final int size;
+
+  public PathPatternIndex(Collection<T> items, Function<T, PathPattern> patternOf) {
+    int order = 0;
+    for (T item : items) {
+      PathPattern pattern = patternOf.apply(item);
+      // the string representation of a pattern is the one it was created from, without spaces around
+      String representation = pattern.toString();
+      if (representation.startsWith(ABSOLUTE_PATH_PATTERN_PREFIX)) {
+        absolutePathIndex.add(new Entry<>(order, item, pattern, representation.substring(ABSOLUTE_PATH_PATTERN_PREFIX.length())));
+      } else {
+        relativePathIndex.add(new Entry<>(order, item, pattern, representation));
+      }
+      order++;
+    }
+    size = order;
+  }
+
+  public static PathPatternIndex<PathPattern> of(PathPattern[] patterns) {
+    return new PathPatternIndex<>(Arrays.asList(patterns), Function.identity());
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean matchesAny(InputFile inputFile) {
+    return absolutePathIndex.matchesAny(inputFile, inputFile.absolutePath())
+      || relativePathIndex.matchesAny(inputFile, inputFile.relativePath());
+  }
+
+  /**
+   * Items whose pattern matches the file, in the order they were given.
+   */
+  public List<T> matching(InputFile inputFile) {
+    if (isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Entry<T>> entries = new ArrayList<>();
+    absolutePathIndex.collect(inputFile, inputFile.absolutePath(), entries);
+    relativePathIndex.collect(inputFile, inputFile.relativePath(), entries);
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+    entries.sort(Comparator.comparingInt(e -> e.order));
+    List<T> items = new ArrayList<>(entries.size());
+    for (Entry<T> entry : entries) {
+      items.add(entry.item);
+    }
+    return items;
+  }
+
+  private static class Index<T> {
+    private final Map<String, List<Entry<T>>> entriesBySuffix = new HashMap<>();
+    private final TreeSet<Integer> suffixLengths = new TreeSet<>();
+    private final List<Entry<T>> entriesWithoutSuffix = new ArrayList<>();
+
+    void add(Entry<T> entry) {
+      if (entry.suffix.isEmpty()) {
+        entriesWithoutSuffix.add(entry);
+      } else {
+        entriesBySuffix.computeIfAbsent(entry.suffix, k -> new ArrayList<>()).add(entry);
+        suffixLengths.add(entry.suffix.length());
+      }
+    }
+
+    boolean matchesAny(InputFile inputFile, @CheckForNull String path) {
+      return visitMatching(inputFile, path, entry -> true);
+    }
+
+    void collect(InputFile inputFile, @CheckForNull String path, List<Entry<T>> result) {
+      visitMatching(inputFile, path, entry -> {
+        result.add(entry);
+        return false;
+      });
+    }
+
+    /**
+     * Visit the entries matching the file, until the visitor returns true.
+     */
+    private boolean visitMatching(InputFile inputFile, @CheckForNull String path, Predicate<Entry<T>> visitor) {
+      if (path == null || (suffixLengths.isEmpty() && entriesWithoutSuffix.isEmpty())) {
+        return false;
+      }
+      String value = normalizePath(path);
+      for (int length : suffixLengths) {
+        if (length > value.length()) {
+          break;
+        }
+        List<Entry<T>> entries = entriesBySuffix.get(value.substring(value.length() - length));
+        if (entries != null && visitEntries(inputFile, value, entries, visitor)) {
+          return true;
+        }
+      }
+      return visitEntries(inputFile, value, entriesWithoutSuffix, visitor);
+    }
+
+    private static <T> boolean visitEntries(InputFile inputFile, String value, List<Entry<T>> entries, Predicate<Entry<T>> visitor) {
+      for (Entry<T> entry : entries) {
+        if (entry.matches(inputFile, value) && visitor.test(entry)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Same as what a wildcard pattern does before matching a path.
+     */
+    private static String normalizePath(String path) {
+      return StringUtils.removeEnd(StringUtils.removeStart(path, "/"), "/");
+    }
+  }
+
+  private static class Entry<T> {
+    private final int order;
+    private final T item;
+    private final PathPattern pattern;
+    private final String prefix;
+    private final String suffix;
+
+    Entry(int order, T item, PathPattern pattern, String wildcardPattern) {
+      this.order = order;
+      this.item = item;
+      this.pattern = pattern;
+      // a leading separator is ignored, and both separators are the same
+      String normalized = wildcardPattern;
+      if (normalized.startsWith("/") || normalized.startsWith("\\")) {
+        normalized = normalized.substring(1);
+      }
+      normalized = normalized.replace('\\', '/');
+
+      int firstWildcard = StringUtils.indexOfAny(normalized, WILDCARDS);
+      if (firstWildcard < 0) {
+        this.prefix = normalized;
+        this.suffix = normalized;
+      } else {
+        this.prefix = normalized.substring(0, firstWildcard);
+        int lastWildcard = normalized.length() - 1;
+        while (WILDCARDS.indexOf(normalized.charAt(lastWildcard)) < 0) {
+          lastWildcard--;
+        }
+        int suffixStart = lastWildcard + 1;
+        // the separator after "**" is optional
+        if (lastWildcard > 0 && normalized.charAt(lastWildcard) == '*' && normalized.charAt(lastWildcard - 1) == '*'
+          && suffixStart < normalized.length() && normalized.charAt(suffixStart) == '/') {
+          suffixStart++;
+        }
+        this.suffix = normalized.substring(suffixStart);
+      }
+    }
+
+    boolean matches(InputFile inputFile, String normalizedPath) {
+      return normalizedPath.startsWith(prefix) && pattern.match(inputFile);
+    }
+  }
+}
@@ -20,10 +20,15 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.sonar.api.batch.fs.InputFile.Type;
+import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -32,29 +37,43 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ConcurrentUtils;
 import org.sonarsource.sonarlint.core.util.ProgressReport;
 
 /**
  * Index input files into {@link InputPathCache}.
+ * <p>
+ * Input files are built (language detection, exclusions, metadata) by several threads when there are many of them, but are added to the
+ * file system by the calling thread, in the order of the analysis configuration.
  */
 @SonarLintSide
 public class FileIndexer {
 
+  /**
+   * Maximum number of threads building input files. Defaults to the number of processors, 1 disables parallel indexing.
+   */
+  public static final String PARALLELISM_PROPERTY = "sonarlint.indexing.parallelism";
+
+  // below that, starting threads costs more than it saves
+  static final int MIN_FILES_PER_THREAD = 50;
+
   private static final Logger LOG = Loggers.get(FileIndexer.class);
 
   private final InputFileBuilder inputFileBuilder;
   private final StandaloneAnalysisConfiguration analysisConfiguration;
   private final DefaultAnalysisResult analysisResult;
   private final ExclusionFilters exclusionFilters;
+  private final Settings settings;
 
   private ProgressReport progressReport;
 
   public FileIndexer(InputFileBuilder inputFileBuilder, ExclusionFilters exclusionFilters, StandaloneAnalysisConfiguration analysisConfiguration,
-    DefaultAnalysisResult analysisResult) {
+    DefaultAnalysisResult analysisResult, Settings settings) {
     this.inputFileBuilder = inputFileBuilder;
     this.exclusionFilters = exclusionFilters;
     this.analysisConfiguration = analysisConfiguration;
     this.analysisResult = analysisResult;
+    this.settings = settings;
   }
 
   void index(SonarLintFileSystem fileSystem) {
@@ -76,17 +95,48 @@ public class FileIndexer {
   }
 
   private void indexFiles(SonarLintFileSystem fileSystem, Progress progress, Iterable<ClientInputFile> inputFiles) {
-    for (ClientInputFile file : inputFiles) {
-      indexFile(fileSystem, progress, file);
+    List<ClientInputFile> files = new ArrayList<>();
+    inputFiles.forEach(files::add);
+    int threads = Math.min(parallelism(), files.size() / MIN_FILES_PER_THREAD);
+    if (threads <= 1) {
+      for (ClientInputFile file : files) {
+        indexFile(fileSystem, progress, buildInputFile(file));
+      }
+      return;
+    }
+
+    ExecutorService executor = ConcurrentUtils.newFixedDaemonThreadPool("sonarlint-file-indexer-", threads);
+    try {
+      List<CompletableFuture<BuiltInputFile>> futures = new ArrayList<>(files.size());
+      for (ClientInputFile file : files) {
+        futures.add(CompletableFuture.supplyAsync(() -> buildInputFile(file), executor));
+      }
+      ConcurrentUtils.awaitAll(futures);
+      for (CompletableFuture<BuiltInputFile> future : futures) {
+        indexFile(fileSystem, progress, future.join());
+      }
+    } finally {
+      executor.shutdownNow();
     }
   }
 
-  private void indexFile(SonarLintFileSystem fileSystem, Progress progress, ClientInputFile file) {
+  private int parallelism() {
+    if (settings.hasKey(PARALLELISM_PROPERTY)) {
+      return settings.getInt(PARALLELISM_PROPERTY);
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private BuiltInputFile buildInputFile(ClientInputFile file) {
     SonarLintInputFile inputFile = inputFileBuilder.create(file);
-    if (exclusionFilters.accept(inputFile, file.isTest() ? Type.TEST : Type.MAIN)) {
-      indexFile(fileSystem, progress, inputFile);
+    return new BuiltInputFile(inputFile, exclusionFilters.accept(inputFile, file.isTest() ? Type.TEST : Type.MAIN));
+  }
+
+  private void indexFile(SonarLintFileSystem fileSystem, Progress progress, BuiltInputFile file) {
+    if (file.accepted) {
+      indexFile(fileSystem, progress, file.inputFile);
     } else {
-      LOG.debug("{} ignored because of inclusion/exclusion patterns", file.getPath());
+      LOG.debug("{} ignored because of inclusion/exclusion patterns", file.inputFile.getClientInputFile().getPath());
     }
   }
 
@@ -101,6 +151,16 @@ public class FileIndexer {
     fs.add(inputDir);
   }
 
+  private static class BuiltInputFile {
+    private final SonarLintInputFile inputFile;
+    private final boolean accepted;
+
+    BuiltInputFile(SonarLintInputFile inputFile, boolean accepted) {
+      this.inputFile = inputFile;
+      this.accepted = accepted;
+    }
+  }
+
   private class Progress {
     private final Set<Path> indexed = new HashSet<>();
 
@@ -19,9 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
-import com.google.common.primitives.Ints;
-
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,9 +27,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
 import org.sonar.api.CoreProperties;
@@ -42,6 +42,11 @@ import org.sonarsource.api.sonarlint.SonarLintSide;
 /**
  * Computes hash of files. Ends of Lines are ignored, so files with
  * same content but different EOL encoding have the same hash.
+ * <p>
+ * Files in UTF-8, US-ASCII or ISO-8859-1 are scanned byte by byte without being decoded: in these encodings line
+ * terminators are single bytes that can't be part of another character, and the number of chars of a character
+ * only depends on its first byte. If the content is not valid in its encoding, or contains the replacement character,
+ * it is decoded like other encodings, so that invalid characters are reported.
  */
 @SonarLintSide
 public class FileMetadata {
@@ -50,110 +55,201 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final char REPLACEMENT_CHARACTER = '\ufffd';
 
-  public abstract static class CharHandler {
+  private static final int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+  private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
 
-    protected void handleAll(char c) {
-    }
+  private enum ByteEncoding {
+    US_ASCII,
+    ISO_8859_1,
+    UTF_8;
 
-    protected void handleIgnoreEoL(char c) {
-    }
-
-    protected void newLine() {
-    }
-
-    protected void eof() {
+    @CheckForNull
+    static ByteEncoding of(Charset charset) {
+      if (StandardCharsets.UTF_8.equals(charset)) {
+        return UTF_8;
+      } else if (StandardCharsets.US_ASCII.equals(charset)) {
+        return US_ASCII;
+      } else if (StandardCharsets.ISO_8859_1.equals(charset)) {
+        return ISO_8859_1;
+      }
+      return null;
     }
   }
 
-  private static class LineCounter extends CharHandler {
+  /**
+   * Offsets of the beginnings of lines, in chars.
+   */
+  private static final class LineOffsets {
+    private int[] offsets;
     private int lines = 1;
-    boolean alreadyLoggedInvalidCharacter = false;
-    private final String filePath;
-    private final Charset encoding;
 
-    LineCounter(String filePath, Charset encoding) {
-      this.filePath = filePath;
-      this.encoding = encoding;
+    LineOffsets(int expectedLines) {
+      offsets = new int[Math.max(16, expectedLines)];
     }
 
-    @Override
-    protected void handleAll(char c) {
-      if (!alreadyLoggedInvalidCharacter && c == '\ufffd') {
-        LOG.warn("Invalid character encountered in file '{}' at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.",
-          filePath,
-          lines, encoding, CoreProperties.ENCODING_PROPERTY);
-        alreadyLoggedInvalidCharacter = true;
+    void newLine(int offset) {
+      if (lines == offsets.length) {
+        offsets = Arrays.copyOf(offsets, lines + (lines >> 1) + 1);
       }
-    }
-
-    @Override
-    protected void newLine() {
+      offsets[lines] = offset;
       lines++;
     }
 
-    public int lines() {
-      return lines;
+    Metadata toMetadata(int lastValidOffset) {
+      return new Metadata(lines, Arrays.copyOf(offsets, lines), lastValidOffset);
     }
-
   }
 
-  private static class LineOffsetCounter extends CharHandler {
-    private int currentOriginalOffset = 0;
-    private List<Integer> originalLineOffsets = new ArrayList<>();
-    private int lastValidOffset = 0;
-
-    public LineOffsetCounter() {
-      originalLineOffsets.add(0);
-    }
+  /**
+   * Compute hash of a file ignoring line ends differences.
+   * Maximum performance is needed.
+   */
+  public Metadata readMetadata(File file, Charset encoding) {
+    return readMetadata(streamFile(file), encoding, file.getAbsolutePath());
+  }
 
-    @Override
-    protected void handleAll(char c) {
-      currentOriginalOffset++;
+  /**
+   * Compute hash of an inputStream ignoring line ends differences.
+   * Maximum performance is needed.
+   */
+  public Metadata readMetadata(InputStream stream, Charset encoding, String filePath) {
+    ByteEncoding byteEncoding = ByteEncoding.of(encoding);
+    if (byteEncoding == null) {
+      return decode(stream, encoding, filePath);
     }
-
-    @Override
-    protected void newLine() {
-      originalLineOffsets.add(currentOriginalOffset);
+    ByteBuffer bytes;
+    try (InputStream in = stream) {
+      bytes = readFully(in);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
     }
-
-    @Override
-    protected void eof() {
-      lastValidOffset = currentOriginalOffset;
+    Metadata metadata = scan(bytes, 0, byteEncoding);
+    if (metadata != null) {
+      return metadata;
     }
+    return decode(new ByteArrayInputStream(bytes.array(), 0, bytes.limit()), encoding, filePath);
+  }
 
-    public List<Integer> getOriginalLineOffsets() {
-      return originalLineOffsets;
+  private static ByteBuffer readFully(InputStream stream) throws IOException {
+    byte[] buffer = BUFFERS.get();
+    int length = 0;
+    int n;
+    while ((n = stream.read(buffer, length, buffer.length - length)) != -1) {
+      length += n;
+      if (length == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
     }
-
-    public int getLastValidOffset() {
-      return lastValidOffset;
+    if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+      BUFFERS.set(buffer);
     }
-
+    return ByteBuffer.wrap(buffer, 0, length);
   }
 
   /**
-   * Compute hash of a file ignoring line ends differences.
-   * Maximum performance is needed.
+   * Scan the bytes from start to the limit of the buffer, counting chars as the decoder of the encoding would produce them.
+   *
+   * @return null if the content is not valid in the encoding, or contains the replacement character
    */
-  public Metadata readMetadata(File file, Charset encoding) {
-    InputStream stream = streamFile(file);
-    return readMetadata(stream, encoding, file.getAbsolutePath());
+  @CheckForNull
+  private static Metadata scan(ByteBuffer bytes, int start, ByteEncoding encoding) {
+    int end = bytes.limit();
+    LineOffsets lineOffsets = new LineOffsets((end - start) / 32);
+    int offset = 0;
+    boolean afterCR = false;
+    int i = start;
+    while (i < end) {
+      int b = bytes.get(i) & 0xFF;
+      int length;
+      int chars;
+      if (b < 0x80) {
+        if (b == LINE_FEED) {
+          offset++;
+          lineOffsets.newLine(offset);
+          afterCR = false;
+          i++;
+          continue;
+        }
+        length = 1;
+        chars = 1;
+      } else if (encoding == ByteEncoding.ISO_8859_1) {
+        length = 1;
+        chars = 1;
+      } else if (encoding == ByteEncoding.US_ASCII) {
+        return null;
+      } else {
+        length = utf8SequenceLength(bytes, i, end);
+        if (length == 0) {
+          return null;
+        }
+        chars = length == 4 ? 2 : 1;
+      }
+      if (afterCR) {
+        lineOffsets.newLine(offset);
+      }
+      afterCR = b == CARRIAGE_RETURN;
+      offset += chars;
+      i += length;
+    }
+    if (afterCR) {
+      lineOffsets.newLine(offset);
+    }
+    return lineOffsets.toMetadata(offset);
   }
 
   /**
-   * Compute hash of an inputStream ignoring line ends differences.
-   * Maximum performance is needed.
+   * Length of the UTF-8 sequence starting at the given position, following the same rules as the JDK decoder.
+   *
+   * @return 0 if the sequence is malformed, or is the replacement character
    */
-  public Metadata readMetadata(InputStream stream, Charset encoding, String filePath) {
-    LineCounter lineCounter = new LineCounter(filePath, encoding);
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    try (Reader reader = new BufferedReader(new InputStreamReader(stream, encoding))) {
-      read(reader, lineCounter, lineOffsetCounter);
-    } catch (IOException e) {
-      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
+  private static int utf8SequenceLength(ByteBuffer bytes, int i, int end) {
+    int b = bytes.get(i) & 0xFF;
+    int length;
+    int min = 0x80;
+    int max = 0xBF;
+    if (b >= 0xC2 && b <= 0xDF) {
+      length = 2;
+    } else if (b >= 0xE0 && b <= 0xEF) {
+      length = 3;
+      if (b == 0xE0) {
+        // overlong
+        min = 0xA0;
+      } else if (b == 0xED) {
+        // surrogates
+        max = 0x9F;
+      }
+    } else if (b >= 0xF0 && b <= 0xF4) {
+      length = 4;
+      if (b == 0xF0) {
+        // overlong
+        min = 0x90;
+      } else if (b == 0xF4) {
+        // above U+10FFFF
+        max = 0x8F;
+      }
+    } else {
+      return 0;
     }
-    return new Metadata(lineCounter.lines(), lineOffsetCounter.getOriginalLineOffsets(), lineOffsetCounter.getLastValidOffset());
+    if (i + length > end) {
+      return 0;
+    }
+    int second = bytes.get(i + 1) & 0xFF;
+    if (second < min || second > max) {
+      return 0;
+    }
+    for (int j = 2; j < length; j++) {
+      int next = bytes.get(i + j) & 0xFF;
+      if (next < 0x80 || next > 0xBF) {
+        return 0;
+      }
+    }
+    if (b == 0xEF && second == 0xBF && (bytes.get(i + 2) & 0xFF) == 0xBD) {
+      // U+FFFD must be reported as an invalid character
+      return 0;
+    }
+    return length;
   }
 
   private static InputStream streamFile(File file) {
@@ -165,51 +261,43 @@ public class FileMetadata {
     }
   }
 
-  private static void read(Reader reader, CharHandler... handlers) throws IOException {
-    char c;
-    int i = reader.read();
+  private static Metadata decode(InputStream stream, Charset encoding, String filePath) {
+    LineOffsets lineOffsets = new LineOffsets(16);
+    int offset = 0;
     boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
-      if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
-            handler.handleAll(c);
-            handler.newLine();
-          } else {
-            handler.newLine();
-            handler.handleIgnoreEoL(c);
-            handler.handleAll(c);
+    boolean alreadyLoggedInvalidCharacter = false;
+    char[] buffer = new char[8192];
+    try (Reader reader = new InputStreamReader(stream, encoding)) {
+      int n;
+      while ((n = reader.read(buffer)) != -1) {
+        for (int i = 0; i < n; i++) {
+          char c = buffer[i];
+          if (c == LINE_FEED) {
+            offset++;
+            lineOffsets.newLine(offset);
+            afterCR = false;
+            continue;
           }
-        }
-        afterCR = c == CARRIAGE_RETURN;
-      } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-          handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
-        afterCR = true;
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-        }
-      } else {
-        for (CharHandler handler : handlers) {
-          handler.handleIgnoreEoL(c);
-          handler.handleAll(c);
+          if (afterCR) {
+            lineOffsets.newLine(offset);
+          }
+          if (!alreadyLoggedInvalidCharacter && c == REPLACEMENT_CHARACTER) {
+            LOG.warn("Invalid character encountered in file '{}' at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.",
+              filePath,
+              lineOffsets.lines, encoding, CoreProperties.ENCODING_PROPERTY);
+            alreadyLoggedInvalidCharacter = true;
+          }
+          afterCR = c == CARRIAGE_RETURN;
+          offset++;
         }
       }
-      i = reader.read();
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
     }
-    for (CharHandler handler : handlers) {
-      if (afterCR) {
-        handler.newLine();
-      }
-      handler.eof();
+    if (afterCR) {
+      lineOffsets.newLine(offset);
     }
+    return lineOffsets.toMetadata(offset);
   }
 
   public static class Metadata {
@@ -217,9 +305,9 @@ public class FileMetadata {
     final int[] originalLineOffsets;
     final int lastValidOffset;
 
-    private Metadata(int lines, List<Integer> originalLineOffsets, int lastValidOffset) {
+    private Metadata(int lines, int[] originalLineOffsets, int lastValidOffset) {
       this.lines = lines;
-      this.originalLineOffsets = Ints.toArray(originalLineOffsets);
+      this.originalLineOffsets = originalLineOffsets;
       this.lastValidOffset = lastValidOffset;
     }
   }
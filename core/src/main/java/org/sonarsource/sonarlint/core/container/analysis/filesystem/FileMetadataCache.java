@@ -0,0 +1,162 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.FileMetadataCacheStats;
+import org.sonarsource.sonarlint.core.container.model.DefaultFileMetadataCacheStats;
+
+/**
+ * Metadata of files computed by previous analyses, shared by all the analyses of an engine.
+ * The metadata of a file are reused as long as its charset and the version of its contents are the same. When the client doesn't provide
+ * a version, the size and last modification date of the file on disk are used instead, but only if the client declared that such contents
+ * are the ones on disk. Otherwise, the metadata of the file are not cached.
+ */
+public class FileMetadataCache {
+  static final int MAX_ENTRIES = 10_000;
+
+  private final Map<String, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  });
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final boolean unversionedContentsOnDisk;
+
+  public FileMetadataCache(AbstractGlobalConfiguration globalConfiguration) {
+    this(globalConfiguration.isUnversionedContentsOnDisk());
+  }
+
+  FileMetadataCache(boolean unversionedContentsOnDisk) {
+    this.unversionedContentsOnDisk = unversionedContentsOnDisk;
+  }
+
+  public FileMetadata.Metadata getOrCompute(ClientInputFile file, Charset charset, Supplier<FileMetadata.Metadata> loader) {
+    // the file is stamped before being read, so that a change happening while reading it invalidates the entry
+    Stamp stamp = stamp(file, charset);
+    if (stamp == null) {
+      misses.incrementAndGet();
+      return loader.get();
+    }
+    String path = file.getPath();
+    Entry entry = entries.get(path);
+    if (entry != null && entry.stamp.equals(stamp)) {
+      hits.incrementAndGet();
+      return entry.metadata;
+    }
+    misses.incrementAndGet();
+    FileMetadata.Metadata metadata = loader.get();
+    entries.put(path, new Entry(stamp, metadata));
+    return metadata;
+  }
+
+  public void invalidate(Collection<String> filePaths) {
+    filePaths.forEach(entries::remove);
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  public FileMetadataCacheStats getStats() {
+    return new DefaultFileMetadataCacheStats(hits.get(), misses.get(), entries.size());
+  }
+
+  @CheckForNull
+  private Stamp stamp(ClientInputFile file, Charset charset) {
+    String version = file.contentVersion();
+    if (version != null) {
+      return new Stamp(charset, version, -1, -1);
+    }
+    if (!unversionedContentsOnDisk) {
+      // contents may come from an editor buffer, not saved yet
+      return null;
+    }
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(Paths.get(file.getPath()), BasicFileAttributes.class);
+      if (!attributes.isRegularFile()) {
+        return null;
+      }
+      return new Stamp(charset, null, attributes.size(), attributes.lastModifiedTime().toMillis());
+    } catch (IOException | RuntimeException e) {
+      // the contents don't come from the disk, or the path is invalid: nothing to rely on
+      return null;
+    }
+  }
+
+  private static class Entry {
+    private final Stamp stamp;
+    private final FileMetadata.Metadata metadata;
+
+    Entry(Stamp stamp, FileMetadata.Metadata metadata) {
+      this.stamp = stamp;
+      this.metadata = metadata;
+    }
+  }
+
+  private static class Stamp {
+    private final Charset charset;
+    @Nullable
+    private final String version;
+    private final long size;
+    private final long lastModified;
+
+    Stamp(Charset charset, @Nullable String version, long size, long lastModified) {
+      this.charset = charset;
+      this.version = version;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Stamp other = (Stamp) o;
+      return size == other.size && lastModified == other.lastModified && charset.equals(other.charset) && Objects.equals(version, other.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(charset, version, size, lastModified);
+    }
+  }
+}
@@ -33,10 +33,12 @@ public class InputFileBuilder {
   private static final Logger LOG = LoggerFactory.getLogger(InputFileBuilder.class);
   private final LanguageDetection langDetection;
   private final FileMetadata fileMetadata;
+  private final FileMetadataCache fileMetadataCache;
 
-  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata) {
+  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata, FileMetadataCache fileMetadataCache) {
     this.langDetection = langDetection;
     this.fileMetadata = fileMetadata;
+    this.fileMetadataCache = fileMetadataCache;
   }
 
   LanguageDetection langDetection() {
@@ -54,15 +56,19 @@ public class InputFileBuilder {
       defaultInputFile.setLanguage(langDetection.language(defaultInputFile));
     }
 
-    Charset charset = inputFile.getCharset();
+    Charset charset = inputFile.getCharset() != null ? inputFile.getCharset() : Charset.defaultCharset();
+    defaultInputFile.init(fileMetadataCache.getOrCompute(inputFile, charset, () -> readMetadata(inputFile, charset)));
+    return defaultInputFile;
+  }
+
+  private FileMetadata.Metadata readMetadata(ClientInputFile inputFile, Charset charset) {
     InputStream stream;
     try {
       stream = inputFile.inputStream();
     } catch (IOException e) {
       throw new IllegalStateException("Failed to open a stream on file: " + inputFile.getPath(), e);
     }
-    defaultInputFile.init(fileMetadata.readMetadata(stream, charset != null ? charset : Charset.defaultCharset(), inputFile.getPath()));
-    return defaultInputFile;
+    return fileMetadata.readMetadata(stream, charset, inputFile.getPath());
   }
 
 }
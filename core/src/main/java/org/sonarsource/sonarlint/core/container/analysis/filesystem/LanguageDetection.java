@@ -21,12 +21,15 @@ package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.CheckForNull;
 
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,27 +41,51 @@ import com.google.common.base.Joiner;
 
 /**
  * Detect language of a source file based on its suffix and configured patterns.
+ * <p>
+ * Most suffixes are plain extensions, that are looked up by the extension of the file. Only the other ones are matched as patterns.
  */
 public class LanguageDetection {
 
   private static final Logger LOG = LoggerFactory.getLogger(LanguageDetection.class);
 
   /**
-   * Lower-case extension -> languages
+   * Language key -> patterns of all its suffixes
    */
   private final Map<String, PathPattern[]> patternsByLanguage = new LinkedHashMap<>();
   private final List<String> languagesToConsider = new ArrayList<>();
 
+  /**
+   * Lower-case extension -> keys of the languages declaring it as suffix, in the order of languages
+   */
+  private final Map<String, List<String>> languagesByExtension = new HashMap<>();
+
+  /**
+   * Language key -> patterns of its suffixes that are not plain extensions
+   */
+  private final Map<String, PathPattern[]> complexPatternsByLanguage = new LinkedHashMap<>();
+
   public LanguageDetection(LanguagesRepository languages) {
     for (Language language : languages.all()) {
       String[] patterns = language.fileSuffixes().toArray(new String[language.fileSuffixes().size()]);
+      List<String> complexPatterns = new ArrayList<>();
       for (int i = 0; i < patterns.length; i++) {
         String suffix = patterns[i];
         String extension = sanitizeExtension(suffix);
         patterns[i] = new StringBuilder().append("file:**/*.").append(extension).toString();
+        if (isPlainExtension(extension)) {
+          List<String> languageKeys = languagesByExtension.computeIfAbsent(extension, k -> new ArrayList<>(1));
+          if (!languageKeys.contains(language.key())) {
+            languageKeys.add(language.key());
+          }
+        } else {
+          complexPatterns.add(patterns[i]);
+        }
       }
       PathPattern[] defaultLanguagePatterns = PathPattern.create(patterns);
       patternsByLanguage.put(language.key(), defaultLanguagePatterns);
+      if (!complexPatterns.isEmpty()) {
+        complexPatternsByLanguage.put(language.key(), PathPattern.create(complexPatterns.toArray(new String[complexPatterns.size()])));
+      }
       if (LOG.isDebugEnabled()) {
         LOG.debug("Declared extensions of language {} were converted to {}", language, getDetails(language.key()));
       }
@@ -67,33 +94,54 @@ public class LanguageDetection {
     languagesToConsider.addAll(patternsByLanguage.keySet());
   }
 
+  /**
+   * A pattern "file:**&#47;*.extension" matches the same files as a lookup by extension if the extension doesn't contain wildcards, directory
+   * separators, or dots (only the last extension of a file name is matched ignoring case).
+   */
+  private static boolean isPlainExtension(String extension) {
+    return !extension.isEmpty() && StringUtils.containsNone(extension, "*?/\\.");
+  }
+
   Map<String, PathPattern[]> patternsByLanguage() {
     return patternsByLanguage;
   }
 
   @CheckForNull
   String language(InputFile inputFile) {
-    String detectedLanguage = null;
-    for (String languageKey : languagesToConsider) {
-      if (isCandidateForLanguage(inputFile, languageKey)) {
-        if (detectedLanguage == null) {
-          detectedLanguage = languageKey;
-        } else {
-          // Language was already forced by another pattern
-          throw MessageException.of(MessageFormat.format("Language of file ''{0}'' can not be decided as the file matches patterns of both {1} and {2}",
-            inputFile.relativePath(), getDetails(detectedLanguage), getDetails(languageKey)));
-        }
-      }
+    List<String> detectedLanguages = detectLanguages(inputFile);
+    if (detectedLanguages.size() > 1) {
+      // Language was already forced by another pattern
+      throw MessageException.of(MessageFormat.format("Language of file ''{0}'' can not be decided as the file matches patterns of both {1} and {2}",
+        inputFile.relativePath(), getDetails(detectedLanguages.get(0)), getDetails(detectedLanguages.get(1))));
     }
-    if (detectedLanguage != null) {
+    if (!detectedLanguages.isEmpty()) {
+      String detectedLanguage = detectedLanguages.get(0);
       LOG.debug("Language of file '{}' is detected to be '{}'", inputFile.absolutePath(), detectedLanguage);
       return detectedLanguage;
     }
     return null;
   }
 
+  /**
+   * Keys of the languages matching the file, in the order of languages.
+   */
+  private List<String> detectLanguages(InputFile inputFile) {
+    String extension = sanitizeExtension(FilenameUtils.getExtension(inputFile.file().getName()));
+    List<String> languagesOfExtension = languagesByExtension.getOrDefault(extension, Collections.emptyList());
+    if (complexPatternsByLanguage.isEmpty()) {
+      return languagesOfExtension;
+    }
+    List<String> detectedLanguages = new ArrayList<>(1);
+    for (String languageKey : languagesToConsider) {
+      if (languagesOfExtension.contains(languageKey) || isCandidateForLanguage(inputFile, languageKey)) {
+        detectedLanguages.add(languageKey);
+      }
+    }
+    return detectedLanguages;
+  }
+
   private boolean isCandidateForLanguage(InputFile inputFile, String languageKey) {
-    PathPattern[] patterns = patternsByLanguage.get(languageKey);
+    PathPattern[] patterns = complexPatternsByLanguage.get(languageKey);
     if (patterns != null) {
       for (PathPattern pathPattern : patterns) {
         if (pathPattern.match(inputFile, false)) {
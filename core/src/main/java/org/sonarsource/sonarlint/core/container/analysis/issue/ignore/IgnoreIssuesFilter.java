@@ -19,6 +19,13 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.issue.ignore;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputComponent;
@@ -27,6 +34,7 @@ import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonarsource.sonarlint.core.analyzer.issue.DefaultFilterableIssue;
+import org.sonarsource.sonarlint.core.container.analysis.PathPatternIndex;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssuePattern;
 
@@ -36,6 +44,11 @@ public class IgnoreIssuesFilter implements IssueFilter {
 
   private final IssueExclusionPatternInitializer patternInitializer;
 
+  /**
+   * Patterns whose path matches a file, computed the first time an issue is reported on the file
+   */
+  private final Map<InputComponent, FilePatterns> patternsByFile = new ConcurrentHashMap<>();
+
   public IgnoreIssuesFilter(IssueExclusionPatternInitializer patternInitializer) {
     this.patternInitializer = patternInitializer;
   }
@@ -44,15 +57,58 @@ public class IgnoreIssuesFilter implements IssueFilter {
   public boolean accept(FilterableIssue issue, IssueFilterChain chain) {
 
     InputComponent inputComponent = ((DefaultFilterableIssue) issue).getInputComponent();
+    PathPatternIndex<IssuePattern> patternIndex = patternInitializer.getMulticriteriaPatternIndex();
 
-    for (IssuePattern pattern : patternInitializer.getMulticriteriaPatterns()) {
-      if (pattern.getRulePattern().match(issue.ruleKey().toString())
-        && inputComponent.isFile()
-        && pattern.getPathPattern().match((InputFile) inputComponent)) {
+    if (inputComponent.isFile() && !patternIndex.isEmpty()) {
+      FilePatterns filePatterns = patternsByFile.computeIfAbsent(inputComponent, c -> new FilePatterns(patternIndex.matching((InputFile) c)));
+      IssuePattern pattern = filePatterns.firstMatching(issue.ruleKey().toString());
+      if (pattern != null) {
         LOG.debug("Issue {} ignored by exclusion pattern {}", issue, pattern);
         return false;
       }
     }
     return chain.accept(issue);
   }
+
+  /**
+   * Patterns matching a file, indexed by rule key when their rule pattern has no wildcard.
+   */
+  private static class FilePatterns {
+    private final List<IssuePattern> patterns;
+    private final Map<String, Integer> firstPatternByRuleKey = new HashMap<>();
+    private final List<Integer> patternsWithWildcard = new ArrayList<>();
+
+    FilePatterns(List<IssuePattern> patterns) {
+      this.patterns = patterns;
+      for (int i = 0; i < patterns.size(); i++) {
+        String rulePattern = patterns.get(i).getRulePattern().toString();
+        if (StringUtils.containsNone(rulePattern, "*?/\\")) {
+          firstPatternByRuleKey.putIfAbsent(rulePattern, i);
+        } else {
+          patternsWithWildcard.add(i);
+        }
+      }
+    }
+
+    /**
+     * First pattern, in the order of the configuration, whose rule pattern matches the rule key.
+     */
+    @CheckForNull
+    IssuePattern firstMatching(String ruleKey) {
+      if (patterns.isEmpty()) {
+        return null;
+      }
+      // like wildcard patterns, ignore separators around the key
+      Integer exactMatch = firstPatternByRuleKey.get(StringUtils.removeEnd(StringUtils.removeStart(ruleKey, "/"), "/"));
+      for (int i : patternsWithWildcard) {
+        if (exactMatch != null && i > exactMatch) {
+          break;
+        }
+        if (patterns.get(i).getRulePattern().match(ruleKey)) {
+          return patterns.get(i);
+        }
+      }
+      return exactMatch != null ? patterns.get(exactMatch) : null;
+    }
+  }
 }
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.config.Settings;
+import org.sonarsource.sonarlint.core.container.analysis.PathPatternIndex;
 import org.sonarsource.sonarlint.core.container.analysis.ServerSettingsProvider;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
@@ -34,6 +35,7 @@ public abstract class AbstractPatternInitializer {
   private Settings settings;
 
   private List<IssuePattern> multicriteriaPatterns;
+  private PathPatternIndex<IssuePattern> multicriteriaPatternIndex;
 
   protected AbstractPatternInitializer(ServerSettingsProvider settingsProvider) {
     this.settings = settingsProvider.getServerSettings();
@@ -44,6 +46,13 @@ public abstract class AbstractPatternInitializer {
     return multicriteriaPatterns;
   }
 
+  /**
+   * Multicriteria patterns indexed by their path pattern.
+   */
+  public PathPatternIndex<IssuePattern> getMulticriteriaPatternIndex() {
+    return multicriteriaPatternIndex;
+  }
+
   @VisibleForTesting
   protected final void initPatterns() {
     // Patterns Multicriteria
@@ -56,6 +65,7 @@ public abstract class AbstractPatternInitializer {
       IssuePattern pattern = new IssuePattern(firstNonNull(resourceKeyPattern, "*"), firstNonNull(ruleKeyPattern, "*"));
       multicriteriaPatterns.add(pattern);
     }
+    multicriteriaPatternIndex = new PathPatternIndex<>(multicriteriaPatterns, IssuePattern::getPathPattern);
   }
 
   protected abstract String getMulticriteriaConfigurationKey();
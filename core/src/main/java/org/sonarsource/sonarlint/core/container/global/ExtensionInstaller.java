@@ -19,7 +19,10 @@
  */
 package org.sonarsource.sonarlint.core.container.global;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import javax.annotation.CheckForNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.ExtensionProvider;
@@ -32,13 +35,23 @@ import org.sonarsource.sonarlint.core.plugin.DefaultPluginRepository;
 import org.sonarsource.sonarlint.core.plugin.PluginCopier;
 import org.sonarsource.sonarlint.core.plugin.PluginInfo;
 
+/**
+ * Installs the extensions of the loaded plugins in a container.
+ * <p>
+ * {@link Plugin#define(Plugin.Context)} is called and its result is filtered once, the extensions are then reused by the next installations.
+ * Containers start, stop and close their component instances, so the plugins providing instances with such lifecycle methods are defined
+ * again for each installation: their instances can't be shared by several containers.
+ */
 public class ExtensionInstaller {
 
   private static final Logger LOG = LoggerFactory.getLogger(ExtensionInstaller.class);
+  private static final String[] LIFECYCLE_METHODS = {"start", "stop", "close"};
 
   private final SonarRuntime sqRuntime;
   private final DefaultPluginRepository pluginRepository;
 
+  private List<PluginExtensions> pluginExtensions;
+
   public ExtensionInstaller(SonarRuntime sqRuntime, DefaultPluginRepository pluginRepository) {
     this.sqRuntime = sqRuntime;
     this.pluginRepository = pluginRepository;
@@ -47,11 +60,10 @@ public class ExtensionInstaller {
   public ExtensionInstaller install(ComponentContainer container) {
 
     // plugin extensions
-    for (PluginInfo pluginInfo : pluginRepository.getPluginInfos()) {
-      Plugin plugin = pluginRepository.getPluginInstance(pluginInfo.getKey());
-      Plugin.Context context = new Plugin.Context(sqRuntime);
-      plugin.define(context);
-      loadExtensions(container, pluginInfo, context);
+    for (PluginExtensions extensions : definePlugins()) {
+      for (Object extension : extensions.extensions) {
+        container.addExtension(extensions.pluginInfo, extension);
+      }
     }
     List<ExtensionProvider> providers = container.getComponentsByType(ExtensionProvider.class);
     for (ExtensionProvider provider : providers) {
@@ -67,7 +79,44 @@ public class ExtensionInstaller {
     return this;
   }
 
-  private static void loadExtensions(ComponentContainer container, PluginInfo pluginInfo, Plugin.Context context) {
+  private List<PluginExtensions> definePlugins() {
+    List<PluginExtensions> firstDefinition = defineFirstTime();
+    if (firstDefinition != null) {
+      return firstDefinition;
+    }
+    List<PluginExtensions> extensions = new ArrayList<>(pluginExtensions.size());
+    for (PluginExtensions previous : pluginExtensions) {
+      extensions.add(previous.reusable ? previous : define(previous.pluginInfo));
+    }
+    return extensions;
+  }
+
+  @CheckForNull
+  private synchronized List<PluginExtensions> defineFirstTime() {
+    if (pluginExtensions != null) {
+      return null;
+    }
+    List<PluginExtensions> extensions = new ArrayList<>();
+    List<PluginExtensions> kept = new ArrayList<>();
+    for (PluginInfo pluginInfo : pluginRepository.getPluginInfos()) {
+      PluginExtensions defined = define(pluginInfo);
+      extensions.add(defined);
+      // instances with lifecycle are only installed in this container, the next installations define the plugin again
+      kept.add(defined.reusable ? defined : new PluginExtensions(pluginInfo));
+    }
+    pluginExtensions = Collections.unmodifiableList(kept);
+    return extensions;
+  }
+
+  private PluginExtensions define(PluginInfo pluginInfo) {
+    Plugin plugin = pluginRepository.getPluginInstance(pluginInfo.getKey());
+    Plugin.Context context = new Plugin.Context(sqRuntime);
+    plugin.define(context);
+    return new PluginExtensions(pluginInfo, loadExtensions(pluginInfo, context));
+  }
+
+  private static List<Object> loadExtensions(PluginInfo pluginInfo, Plugin.Context context) {
+    List<Object> extensions = new ArrayList<>();
     for (Object extension : context.getExtensions()) {
       Boolean isSlPluginOrNull = pluginInfo.isSonarLintSupported();
       boolean isExplicitlySonarLintCompatible = isSlPluginOrNull != null && isSlPluginOrNull.booleanValue();
@@ -75,15 +124,34 @@ public class ExtensionInstaller {
         // When plugin itself claim to be compatible with SonarLint, only load @SonarLintSide extensions
         // filter out non officially supported Sensors
         if (ExtensionUtils.isSonarLintSide(extension) && (PluginCopier.isWhitelisted(pluginInfo.getKey()) || isNotSensor(extension))) {
-          container.addExtension(pluginInfo, extension);
+          extensions.add(extension);
         }
       } else if (!blacklisted(extension) && (ExtensionUtils.isScannerSide(extension) || ExtensionUtils.isType(extension, ProfileDefinition.class))) {
         // Here we have whitelisted extensions of whitelisted plugins
-        container.addExtension(pluginInfo, extension);
+        extensions.add(extension);
       } else {
         LOG.debug("Extension {} was blacklisted as it is not used by SonarLint", className(extension));
       }
     }
+    return extensions;
+  }
+
+  /**
+   * Same lifecycle methods as the ones called by {@link ComponentContainer}
+   */
+  static boolean hasLifecycle(Object extension) {
+    if (extension instanceof Class) {
+      return false;
+    }
+    for (String method : LIFECYCLE_METHODS) {
+      try {
+        extension.getClass().getMethod(method);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // try next one
+      }
+    }
+    return false;
   }
 
   private static boolean isNotSensor(Object extension) {
@@ -105,4 +173,25 @@ public class ExtensionInstaller {
     return extension instanceof Class ? ((Class) extension).getName() : extension.getClass().getName();
   }
 
+  private static class PluginExtensions {
+    private final PluginInfo pluginInfo;
+    private final List<Object> extensions;
+    private final boolean reusable;
+
+    PluginExtensions(PluginInfo pluginInfo, List<Object> extensions) {
+      this.pluginInfo = pluginInfo;
+      this.extensions = extensions;
+      this.reusable = extensions.stream().noneMatch(ExtensionInstaller::hasLifecycle);
+    }
+
+    /**
+     * Plugin to be defined again by each installation
+     */
+    PluginExtensions(PluginInfo pluginInfo) {
+      this.pluginInfo = pluginInfo;
+      this.extensions = Collections.emptyList();
+      this.reusable = false;
+    }
+  }
+
 }
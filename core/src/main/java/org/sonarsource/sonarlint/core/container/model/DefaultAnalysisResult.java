@@ -19,9 +19,11 @@
  */
 package org.sonarsource.sonarlint.core.container.model;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
@@ -29,12 +31,24 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile
 public class DefaultAnalysisResult implements AnalysisResults {
   private Set<ClientInputFile> failedAnalysisFiles = new LinkedHashSet<>();
   private int fileCount;
+  private Duration predictedDuration;
+  private Duration actualDuration;
 
   public DefaultAnalysisResult setFileCount(int fileCount) {
     this.fileCount = fileCount;
     return this;
   }
 
+  public DefaultAnalysisResult setPredictedDuration(Duration predictedDuration) {
+    this.predictedDuration = predictedDuration;
+    return this;
+  }
+
+  public DefaultAnalysisResult setActualDuration(Duration actualDuration) {
+    this.actualDuration = actualDuration;
+    return this;
+  }
+
   public void addFailedAnalysisFile(ClientInputFile inputFile) {
     failedAnalysisFiles.add(inputFile);
   }
@@ -49,4 +63,16 @@ public class DefaultAnalysisResult implements AnalysisResults {
     return failedAnalysisFiles;
   }
 
+  @CheckForNull
+  @Override
+  public Duration predictedDuration() {
+    return predictedDuration;
+  }
+
+  @CheckForNull
+  @Override
+  public Duration actualDuration() {
+    return actualDuration;
+  }
+
 }
@@ -0,0 +1,152 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Analysis costs of files measured by the previous partitioned analyses, stored in the work dir so that they survive restarts.
+ * <p>
+ * Sensors analyze all the files of a partition at once, so the duration of a partition is attributed to its files by size: the history
+ * keeps, for each file, the analysis time per byte of the partitions it was part of. Files never analyzed are estimated with the
+ * average rate of the known ones.
+ */
+public class AnalysisCostHistory {
+
+  private static final Logger LOG = Loggers.get(AnalysisCostHistory.class);
+
+  static final String FILE_NAME = "analysis-costs.txt";
+
+  // least recently analyzed files are forgotten first
+  static final int MAX_ENTRIES = 10_000;
+
+  // used until some files have been analyzed
+  static final double DEFAULT_NANOS_PER_BYTE = 1_000;
+
+  private final Path file;
+  private final Map<String, Double> nanosPerByte = new LinkedHashMap<String, Double>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+  private double averageNanosPerByte = Double.NaN;
+  private boolean loaded;
+  private boolean modified;
+
+  public AnalysisCostHistory(Path workDir) {
+    this.file = workDir.resolve(FILE_NAME);
+  }
+
+  /**
+   * @return estimated analysis time of the file, in nanoseconds
+   */
+  public synchronized long estimate(ClientInputFile inputFile) {
+    load();
+    Double rate = nanosPerByte.get(inputFile.getPath());
+    return (long) (size(inputFile) * (rate != null ? rate : averageNanosPerByte()));
+  }
+
+  /**
+   * Attributes the time spent analyzing the files together, in nanoseconds, to each of them.
+   */
+  public synchronized void record(Iterable<ClientInputFile> inputFiles, long nanos) {
+    load();
+    List<ClientInputFile> files = new ArrayList<>();
+    long totalSize = 0;
+    for (ClientInputFile inputFile : inputFiles) {
+      files.add(inputFile);
+      totalSize += size(inputFile);
+    }
+    if (files.isEmpty()) {
+      return;
+    }
+    double rate = (double) nanos / totalSize;
+    for (ClientInputFile inputFile : files) {
+      // smooth the noise of a single measure
+      nanosPerByte.merge(inputFile.getPath(), rate, (previous, current) -> (previous + current) / 2);
+    }
+    averageNanosPerByte = Double.NaN;
+    modified = true;
+  }
+
+  /**
+   * Writes the costs recorded since the last save, if any.
+   */
+  public synchronized void save() {
+    if (!modified) {
+      return;
+    }
+    List<String> lines = new ArrayList<>(nanosPerByte.size());
+    nanosPerByte.forEach((path, rate) -> lines.add(rate + "\t" + path));
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmp = Files.createTempFile(file.getParent(), FILE_NAME, null);
+      Files.write(tmp, lines, StandardCharsets.UTF_8);
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      modified = false;
+    } catch (IOException e) {
+      LOG.debug("Unable to save analysis costs to " + file, e);
+    }
+  }
+
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        int separator = line.indexOf('\t');
+        if (separator > 0) {
+          nanosPerByte.put(line.substring(separator + 1), Double.parseDouble(line.substring(0, separator)));
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      LOG.debug("Unable to load analysis costs from " + file, e);
+      nanosPerByte.clear();
+    }
+  }
+
+  private double averageNanosPerByte() {
+    if (Double.isNaN(averageNanosPerByte)) {
+      averageNanosPerByte = nanosPerByte.values().stream().mapToDouble(Double::doubleValue).average().orElse(DEFAULT_NANOS_PER_BYTE);
+    }
+    return averageNanosPerByte;
+  }
+
+  private static long size(ClientInputFile inputFile) {
+    return Math.max(1, AnalysisPartitioner.fileSize(inputFile));
+  }
+}
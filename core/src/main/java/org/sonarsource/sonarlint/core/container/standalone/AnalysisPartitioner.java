@@ -0,0 +1,199 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FilenameUtils;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Splits the input files of a standalone analysis into partitions, analyzed concurrently by their own analysis container.
+ * <p>
+ * Files are assigned, the most expensive first, to the partition with the lowest estimated cost so far. Files of the languages whose
+ * analyzers need to see the whole project are kept together in one partition. The language of a file is the one declared by the client,
+ * or its extension otherwise.
+ */
+public class AnalysisPartitioner {
+
+  /**
+   * Maximum number of partitions of an analysis. Defaults to 1, which disables partitioning.
+   */
+  public static final String PARTITIONS_PROPERTY = "sonarlint.analysis.partitions";
+
+  /**
+   * Comma separated languages whose files must be analyzed by the same analysis container.
+   */
+  public static final String WHOLE_PROJECT_LANGUAGES_PROPERTY = "sonarlint.analysis.partitions.wholeProjectLanguages";
+
+  // below that, starting an analysis container costs more than it saves
+  static final int MIN_FILES_PER_PARTITION = 100;
+
+  private final int maxPartitions;
+  private final Set<String> wholeProjectLanguages;
+  private final ToLongFunction<ClientInputFile> costEstimator;
+
+  public AnalysisPartitioner(int maxPartitions, Collection<String> wholeProjectLanguages, ToLongFunction<ClientInputFile> costEstimator) {
+    this.maxPartitions = maxPartitions;
+    this.wholeProjectLanguages = new HashSet<>(wholeProjectLanguages);
+    this.costEstimator = costEstimator;
+  }
+
+  /**
+   * Partitions configured by the analysis properties, with the size of files as estimated cost.
+   */
+  public static AnalysisPartitioner fromProperties(Map<String, String> properties) {
+    return fromProperties(properties, AnalysisPartitioner::fileSize);
+  }
+
+  /**
+   * Partitions configured by the analysis properties.
+   */
+  public static AnalysisPartitioner fromProperties(Map<String, String> properties, ToLongFunction<ClientInputFile> costEstimator) {
+    String partitions = properties.get(PARTITIONS_PROPERTY);
+    int maxPartitions = partitions != null ? Integer.parseInt(partitions.trim()) : 1;
+    String languages = properties.get(WHOLE_PROJECT_LANGUAGES_PROPERTY);
+    List<String> wholeProjectLanguages = languages != null ? Arrays.stream(languages.split(","))
+      .map(String::trim)
+      .filter(s -> !s.isEmpty())
+      .collect(Collectors.toList()) : Collections.emptyList();
+    return new AnalysisPartitioner(maxPartitions, wholeProjectLanguages, costEstimator);
+  }
+
+  public boolean isEnabled() {
+    return maxPartitions > 1;
+  }
+
+  /**
+   * @return sum of the estimated costs of the files
+   */
+  public long estimatedCost(Collection<ClientInputFile> files) {
+    return files.stream().mapToLong(this::cost).sum();
+  }
+
+  private long cost(ClientInputFile file) {
+    // any file has some overhead, even when its cost is unknown
+    return Math.max(1, costEstimator.applyAsLong(file));
+  }
+
+  /**
+   * @return non empty partitions, each of them keeping the order of the given files
+   */
+  public List<List<ClientInputFile>> partition(Iterable<ClientInputFile> inputFiles) {
+    List<ClientInputFile> files = new ArrayList<>();
+    inputFiles.forEach(files::add);
+    int partitionCount = Math.min(maxPartitions, files.size() / MIN_FILES_PER_PARTITION);
+    if (partitionCount <= 1) {
+      return Collections.singletonList(files);
+    }
+
+    List<Unit> units = new ArrayList<>();
+    Map<String, Unit> wholeProjectUnits = new LinkedHashMap<>();
+    for (int i = 0; i < files.size(); i++) {
+      ClientInputFile file = files.get(i);
+      String language = language(file);
+      Unit unit;
+      if (wholeProjectLanguages.contains(language)) {
+        unit = wholeProjectUnits.computeIfAbsent(language, l -> new Unit());
+      } else {
+        unit = new Unit();
+      }
+      if (unit.positions.isEmpty()) {
+        units.add(unit);
+      }
+      unit.add(i, cost(file));
+    }
+    // stable, so that files of same cost keep their order
+    units.sort(Comparator.comparingLong((Unit u) -> u.cost).reversed());
+
+    PriorityQueue<Partition> partitions = new PriorityQueue<>(Comparator.comparingLong((Partition p) -> p.cost).thenComparingInt(p -> p.index));
+    for (int i = 0; i < partitionCount; i++) {
+      partitions.add(new Partition(i));
+    }
+    for (Unit unit : units) {
+      Partition cheapest = partitions.poll();
+      cheapest.add(unit);
+      partitions.add(cheapest);
+    }
+
+    return partitions.stream()
+      .sorted(Comparator.comparingInt(p -> p.index))
+      .filter(p -> !p.positions.isEmpty())
+      .map(p -> p.positions.stream().sorted().map(files::get).collect(Collectors.toList()))
+      .collect(Collectors.toList());
+  }
+
+  private static String language(ClientInputFile file) {
+    String language = file.language();
+    if (language != null) {
+      return language;
+    }
+    return FilenameUtils.getExtension(file.getPath()).toLowerCase(Locale.ENGLISH);
+  }
+
+  static long fileSize(ClientInputFile file) {
+    try {
+      return Files.size(Paths.get(file.getPath()));
+    } catch (IOException | InvalidPathException e) {
+      return 0;
+    }
+  }
+
+  private static class Unit {
+    private final List<Integer> positions = new ArrayList<>();
+    private long cost;
+
+    void add(int position, long fileCost) {
+      positions.add(position);
+      cost += fileCost;
+    }
+  }
+
+  private static class Partition {
+    private final int index;
+    private final List<Integer> positions = new ArrayList<>();
+    private long cost;
+
+    Partition(int index) {
+      this.index = index;
+    }
+
+    void add(Unit unit) {
+      positions.addAll(unit.positions);
+      cost += unit.cost;
+    }
+  }
+}
@@ -19,9 +19,13 @@
  */
 package org.sonarsource.sonarlint.core.container.standalone;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarQubeVersion;
 import org.sonar.api.batch.rule.ActiveRule;
@@ -36,13 +40,19 @@ import org.sonar.api.server.rule.RulesDefinition.Repository;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.UriReader;
 import org.sonar.api.utils.Version;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.analyzer.sensor.ExtensionMetadataCache;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainer;
+import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainerTemplate;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadataCache;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
 import org.sonarsource.sonarlint.core.container.global.GlobalTempFolderProvider;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
@@ -55,17 +65,22 @@ import org.sonarsource.sonarlint.core.plugin.PluginCopier;
 import org.sonarsource.sonarlint.core.plugin.PluginInfo;
 import org.sonarsource.sonarlint.core.plugin.PluginLoader;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCacheProvider;
+import org.sonarsource.sonarlint.core.util.ConcurrentUtils;
 
 public class StandaloneGlobalContainer extends ComponentContainer {
 
+  private static final Logger LOG = Loggers.get(StandaloneGlobalContainer.class);
+
   private Rules rules;
   private ActiveRules activeRules;
   private Context rulesDefinitions;
+  private AnalysisContainerTemplate analysisContainerTemplate;
 
   public static StandaloneGlobalContainer create(StandaloneGlobalConfiguration globalConfig) {
     StandaloneGlobalContainer container = new StandaloneGlobalContainer();
     container.add(globalConfig);
     container.add(new StandalonePluginIndexProvider(globalConfig.getPluginUrls()));
+    container.add(new AnalysisCostHistory(globalConfig.getWorkDir()));
     return container;
   }
 
@@ -85,6 +100,8 @@ public class StandaloneGlobalContainer extends ComponentContainer {
       new GlobalTempFolderProvider(),
       UriReader.class,
       new PluginCacheProvider(),
+      FileMetadataCache.class,
+      ExtensionMetadataCache.class,
       System2.INSTANCE);
   }
 
@@ -112,7 +129,80 @@ public class StandaloneGlobalContainer extends ComponentContainer {
   }
 
   public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener) {
-    AnalysisContainer analysisContainer = new AnalysisContainer(this);
+    AnalysisCostHistory costHistory = getComponentByType(AnalysisCostHistory.class);
+    AnalysisPartitioner partitioner = AnalysisPartitioner.fromProperties(configuration.extraProperties(), costHistory::estimate);
+    if (!partitioner.isEnabled()) {
+      return analyzePartition(configuration, issueListener);
+    }
+
+    long start = System.nanoTime();
+    List<List<ClientInputFile>> partitions = partitioner.partition(configuration.inputFiles());
+    // partitions are analyzed concurrently, so the slowest one determines the duration
+    Duration predictedDuration = Duration.ofNanos(partitions.stream().mapToLong(partitioner::estimatedCost).max().orElse(0));
+    try {
+      DefaultAnalysisResult result;
+      if (partitions.size() == 1) {
+        result = analyzeAndRecordCost(configuration, issueListener, costHistory);
+      } else {
+        result = analyzePartitions(configuration, partitions, issueListener, costHistory);
+      }
+      Duration actualDuration = Duration.ofNanos(System.nanoTime() - start);
+      LOG.debug("Analysis done in {} ms, predicted {} ms", actualDuration.toMillis(), predictedDuration.toMillis());
+      return result.setPredictedDuration(predictedDuration).setActualDuration(actualDuration);
+    } finally {
+      costHistory.save();
+    }
+  }
+
+  private DefaultAnalysisResult analyzePartitions(StandaloneAnalysisConfiguration configuration, List<List<ClientInputFile>> partitions, IssueListener issueListener,
+    AnalysisCostHistory costHistory) {
+    LOG.debug("Analyze {} partitions of files concurrently", partitions.size());
+    Object listenerLock = new Object();
+    AtomicBoolean analysisDone = new AtomicBoolean();
+    IssueListener sharedListener = issue -> {
+      synchronized (listenerLock) {
+        // partitions still running after an interruption don't report to the client anymore
+        if (!analysisDone.get()) {
+          issueListener.handle(issue);
+        }
+      }
+    };
+
+    ExecutorService executor = ConcurrentUtils.newFixedDaemonThreadPool("sonarlint-analysis-partition-", partitions.size());
+    try {
+      List<CompletableFuture<DefaultAnalysisResult>> futures = new ArrayList<>(partitions.size());
+      for (int i = 0; i < partitions.size(); i++) {
+        // each analysis container has its own temp folder in the work dir
+        StandaloneAnalysisConfiguration partitionConfiguration = new StandaloneAnalysisConfiguration(configuration.baseDir(),
+          configuration.workDir().resolve("partition-" + i), partitions.get(i), configuration.extraProperties());
+        futures.add(CompletableFuture.supplyAsync(() -> analyzeAndRecordCost(partitionConfiguration, sharedListener, costHistory), executor));
+      }
+      ConcurrentUtils.awaitAll(futures);
+      DefaultAnalysisResult result = new DefaultAnalysisResult();
+      int fileCount = 0;
+      for (CompletableFuture<DefaultAnalysisResult> future : futures) {
+        DefaultAnalysisResult partitionResult = future.join();
+        fileCount += partitionResult.fileCount();
+        partitionResult.failedAnalysisFiles().forEach(result::addFailedAnalysisFile);
+      }
+      return result.setFileCount(fileCount);
+    } finally {
+      executor.shutdownNow();
+      synchronized (listenerLock) {
+        analysisDone.set(true);
+      }
+    }
+  }
+
+  private DefaultAnalysisResult analyzeAndRecordCost(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, AnalysisCostHistory costHistory) {
+    long start = System.nanoTime();
+    DefaultAnalysisResult result = analyzePartition(configuration, issueListener);
+    costHistory.record(configuration.inputFiles(), System.nanoTime() - start);
+    return result;
+  }
+
+  private DefaultAnalysisResult analyzePartition(StandaloneAnalysisConfiguration configuration, IssueListener issueListener) {
+    AnalysisContainer analysisContainer = new AnalysisContainer(getAnalysisContainerTemplate());
     analysisContainer.add(configuration);
     analysisContainer.add(issueListener);
     analysisContainer.add(rules);
@@ -123,6 +213,17 @@ public class StandaloneGlobalContainer extends ComponentContainer {
     return defaultAnalysisResult;
   }
 
+  /**
+   * Created by the first analysis, then reused by the next ones.
+   */
+  public synchronized AnalysisContainerTemplate getAnalysisContainerTemplate() {
+    if (analysisContainerTemplate == null) {
+      analysisContainerTemplate = new AnalysisContainerTemplate(this);
+      analysisContainerTemplate.startComponents();
+    }
+    return analysisContainerTemplate;
+  }
+
   public RuleDetails getRuleDetails(String ruleKeyStr) {
     RuleKey ruleKey = RuleKey.parse(ruleKeyStr);
     DefaultRule rule = (DefaultRule) rules.find(ruleKey);
@@ -142,5 +243,4 @@ public class StandaloneGlobalContainer extends ComponentContainer {
     }
     return result;
   }
-
 }
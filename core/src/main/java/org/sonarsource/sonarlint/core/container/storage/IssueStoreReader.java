@@ -21,6 +21,8 @@ package org.sonarsource.sonarlint.core.container.storage;
 
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -54,14 +56,40 @@ public class IssueStoreReader {
       .collect(Collectors.toList());
   }
 
+  /**
+   * Same as {@link #getServerIssues(String, String)} for several files, reading the module configuration and opening the store only once.
+   */
+  public Map<String, List<ServerIssue>> getServerIssues(String moduleKey, Collection<String> filePaths) {
+    ModuleConfiguration moduleConfig = readModuleConfig(moduleKey);
+
+    Path serverIssuesPath = storageManager.getServerIssuesPath(moduleKey);
+    IssueStore issueStore = issueStoreFactory.apply(serverIssuesPath);
+
+    Map<String, List<ServerIssue>> issuesByFile = new LinkedHashMap<>();
+    for (String filePath : filePaths) {
+      List<ScannerInput.ServerIssue> loadedIssues = issueStore.load(getFileKey(moduleConfig, moduleKey, filePath));
+      issuesByFile.put(filePath, loadedIssues.stream()
+        .map(pbIssue -> transformIssue(pbIssue, moduleKey, filePath))
+        .collect(Collectors.toList()));
+    }
+    return issuesByFile;
+  }
+
   public String getFileKey(String moduleKey, String filePath) {
+    return getFileKey(readModuleConfig(moduleKey), moduleKey, filePath);
+  }
+
+  private ModuleConfiguration readModuleConfig(String moduleKey) {
     ModuleConfiguration moduleConfig = storageManager.readModuleConfigFromStorage(moduleKey);
 
     if (moduleConfig == null) {
       // unknown module
       throw new IllegalStateException("module not in storage: " + moduleKey);
     }
+    return moduleConfig;
+  }
 
+  private static String getFileKey(ModuleConfiguration moduleConfig, String moduleKey, String filePath) {
     Map<String, String> modulePaths = moduleConfig.getModulePathByKeyMap();
 
     // find longest prefix match
@@ -59,7 +59,7 @@ public class StorageAnalyzer {
   public AnalysisResults analyze(StorageContainer container, ConnectedAnalysisConfiguration configuration, IssueListener issueListener) {
     checkStatus(configuration.moduleKey());
 
-    AnalysisContainer analysisContainer = new AnalysisContainer(container);
+    AnalysisContainer analysisContainer = new AnalysisContainer(container.getAnalysisContainerTemplate());
     DefaultAnalysisResult defaultAnalysisResult = new DefaultAnalysisResult();
 
     analysisContainer.add(
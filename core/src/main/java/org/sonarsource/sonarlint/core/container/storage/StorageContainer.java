@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.container.storage;
 
 import java.text.SimpleDateFormat;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,6 +35,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.UriReader;
 import org.sonar.api.utils.Version;
+import org.sonarsource.sonarlint.core.analyzer.sensor.ExtensionMetadataCache;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
@@ -47,6 +49,8 @@ import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainerTemplate;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadataCache;
 import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
 import org.sonarsource.sonarlint.core.container.global.GlobalTempFolderProvider;
@@ -64,6 +68,8 @@ import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 public class StorageContainer extends ComponentContainer {
   private static final Logger LOG = LoggerFactory.getLogger(StorageContainer.class);
 
+  private AnalysisContainerTemplate analysisContainerTemplate;
+
   public static StorageContainer create(ConnectedGlobalConfiguration globalConfig) {
     StorageContainer container = new StorageContainer();
     container.add(globalConfig);
@@ -97,6 +103,8 @@ public class StorageContainer extends ComponentContainer {
 
       // analysis
       StorageAnalyzer.class,
+      FileMetadataCache.class,
+      ExtensionMetadataCache.class,
 
       // needed during analysis (immutable)
       UriReader.class,
@@ -133,6 +141,17 @@ public class StorageContainer extends ComponentContainer {
     return getComponentByType(StorageAnalyzer.class).analyze(this, configuration, issueListener);
   }
 
+  /**
+   * Created by the first analysis, then reused by the next ones.
+   */
+  public synchronized AnalysisContainerTemplate getAnalysisContainerTemplate() {
+    if (analysisContainerTemplate == null) {
+      analysisContainerTemplate = new AnalysisContainerTemplate(this);
+      analysisContainerTemplate.startComponents();
+    }
+    return analysisContainerTemplate;
+  }
+
   public RuleDetails getRuleDetails(String ruleKeyStr) {
     return getComponentByType(StorageRuleDetailsReader.class).apply(ruleKeyStr);
   }
@@ -165,6 +184,10 @@ public class StorageContainer extends ComponentContainer {
     return getComponentByType(IssueStoreReader.class).getServerIssues(moduleKey, filePath);
   }
 
+  public Map<String, List<ServerIssue>> getServerIssues(String moduleKey, Collection<String> filePaths) {
+    return getComponentByType(IssueStoreReader.class).getServerIssues(moduleKey, filePaths);
+  }
+
   public List<ServerIssue> downloadServerIssues(ServerConfiguration serverConfig, String moduleKey, String filePath) {
     IssueStoreReader issueStoreReader = getComponentByType(IssueStoreReader.class);
     StorageManager storageManager = getComponentByType(StorageManager.class);
@@ -181,6 +204,12 @@ public class StorageContainer extends ComponentContainer {
     updater.updateFileIssues(moduleKey, tempFolder);
   }
 
+  public Map<String, List<ServerIssue>> downloadServerIssues(ServerConfiguration serverConfig, String moduleKey, Collection<String> filePaths) {
+    // a single request for the whole module, rather than one per file
+    downloadServerIssues(serverConfig, moduleKey);
+    return getServerIssues(moduleKey, filePaths);
+  }
+
   public Map<String, RemoteModule> downloadModuleList(ServerConfiguration serverConfig, ProgressWrapper progress) {
     IssueStoreReader issueStoreReader = getComponentByType(IssueStoreReader.class);
     StorageManager storageManager = getComponentByType(StorageManager.class);
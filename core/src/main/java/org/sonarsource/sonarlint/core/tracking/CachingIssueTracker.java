@@ -37,4 +37,15 @@ public interface CachingIssueTracker extends IssueTracker {
    * @param trackables the trackables in the file
    */
   Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables);
+
+  /**
+   * Line hashes of the file, to create the trackables of an analysis with {@link IssueTrackable#withLineHashes}.
+   * They are computed once and shared by all the issues of the file, until its content changes
+   * or its trackables are matched by {@link #matchAndTrackAsNew}.
+   * Should be called once per file and analysis, and the result passed to all the trackables of the file.
+   *
+   * @param file the file analyzed
+   * @param content the content of the file that was analyzed
+   */
+  LineHashes getLineHashes(String file, CharSequence content);
 }
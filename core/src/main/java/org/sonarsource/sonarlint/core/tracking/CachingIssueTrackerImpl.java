@@ -21,13 +21,34 @@ package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CachingIssueTrackerImpl extends IssueTrackerImpl implements CachingIssueTracker {
 
+  // must be a power of 2
+  private static final int LOCK_STRIPES = 64;
+
   private final IssueTrackerCache cache;
+  // only kept for the duration of an analysis
+  private final Map<String, LineHashes> lineHashesByFile = new ConcurrentHashMap<>();
+  // tracking of a file is a read-modify-write of its cache entry: serialize it per file, so that different files track in parallel
+  private final Object[] locks = new Object[LOCK_STRIPES];
+  // indexes of the last tracked trackables of the files in the cache, to track their next analysis incrementally.
+  // They are released with the trackables they index, when the cache evicts the file.
+  private final Map<String, TrackedFileIndex> indexes = new ConcurrentHashMap<>();
 
   public CachingIssueTrackerImpl(IssueTrackerCache cache) {
     this.cache = cache;
+    cache.addEvictionListener(indexes::remove);
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  private Object lockFor(String file) {
+    int h = file.hashCode();
+    return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
   }
 
   /**
@@ -36,14 +57,26 @@ public class CachingIssueTrackerImpl extends IssueTrackerImpl implements Caching
    * If this is the first analysis, leave creation date as null.
    */
   @Override
-  public synchronized Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
+  public Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
     Collection<Trackable> tracked;
-    if (cache.isFirstAnalysis(file)) {
-      tracked = trackables;
-    } else {
-      tracked = apply(cache.getCurrentTrackables(file), trackables, false);
+    synchronized (lockFor(file)) {
+      TrackedFileIndex index = indexes.remove(file);
+      if (cache.isFirstAnalysis(file)) {
+        tracked = trackables;
+      } else {
+        Collection<Trackable> current = cache.getCurrentTrackables(file);
+        if (index != null && index.isIndexOf(current)) {
+          tracked = apply(index, trackables, false);
+        } else {
+          // the cache entry was evicted or replaced since the last tracking
+          tracked = apply(current, trackables, false);
+        }
+      }
+      // indexed first, so that the index is released if the cache evicts the file right away
+      indexes.put(file, TrackedFileIndex.of(tracked));
+      cache.put(file, tracked);
     }
-    cache.put(file, tracked);
+    lineHashesByFile.remove(file);
     return tracked;
   }
 
@@ -51,20 +84,37 @@ public class CachingIssueTrackerImpl extends IssueTrackerImpl implements Caching
    * {@inheritDoc}
    */
   @Override
-  public synchronized Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
-    // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
-    // an analysis before that set the live issues for the file (even if it is empty)
-    Collection<Trackable> current = cache.getLiveOrFail(file);
-    if (current.isEmpty()) {
-      // whatever is the base, if current is empty, then nothing to do
-      return Collections.emptyList();
+  public LineHashes getLineHashes(String file, CharSequence content) {
+    return lineHashesByFile.compute(file, (f, hashes) -> hashes != null && hashes.isComputedFrom(content) ? hashes : LineHashes.compute(content));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
+    synchronized (lockFor(file)) {
+      // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
+      // an analysis before that set the live issues for the file (even if it is empty)
+      Collection<Trackable> current = cache.getLiveOrFail(file);
+      if (current.isEmpty()) {
+        // whatever is the base, if current is empty, then nothing to do
+        return Collections.emptyList();
+      }
+      Collection<Trackable> tracked = apply(trackables, current, true);
+      indexes.put(file, TrackedFileIndex.of(tracked));
+      cache.put(file, tracked);
+      return tracked;
     }
-    Collection<Trackable> tracked = apply(trackables, current, true);
-    cache.put(file, tracked);
-    return tracked;
+  }
+
+  boolean isIndexed(String file) {
+    return indexes.containsKey(file);
   }
 
   public void clear() {
+    lineHashesByFile.clear();
+    indexes.clear();
     cache.clear();
   }
 
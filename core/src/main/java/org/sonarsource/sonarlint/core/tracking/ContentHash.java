@@ -0,0 +1,69 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Hash functions of content used to match trackables. Whitespace characters are ignored.
+ */
+public enum ContentHash {
+
+  /**
+   * Hash code of the hexadecimal MD5 digest, see {@link DigestUtils#digestHashCode(CharSequence)}.
+   * To be used for hashes that are persisted in the local issue store or compared with server checksums.
+   */
+  MD5_COMPATIBLE {
+    @Override
+    public int hash(CharSequence content) {
+      return DigestUtils.digestHashCode(content);
+    }
+  },
+
+  /**
+   * 64-bit FNV-1a hash folded into an int. Much cheaper than {@link #MD5_COMPATIBLE}, but values are not compatible with it:
+   * only to be used for hashes compared within the same session.
+   */
+  FAST {
+    @Override
+    public int hash(CharSequence content) {
+      long hash = FNV_OFFSET_BASIS;
+      for (int i = 0; i < content.length(); i++) {
+        char c = content.charAt(i);
+        if (!WhitespaceSkippingDigester.isWhitespace(c)) {
+          hash ^= c;
+          hash *= FNV_PRIME;
+        }
+      }
+      return (int) (hash ^ (hash >>> 32));
+    }
+  };
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  public abstract int hash(CharSequence content);
+
+  @CheckForNull
+  public Integer hashOrNull(@Nullable CharSequence content) {
+    return content != null ? hash(content) : null;
+  }
+}
@@ -22,20 +22,43 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 public class DigestUtils {
 
   private static final char[] DIGITS = "0123456789abcdef".toCharArray();
 
-  private static final MessageDigest MD5_DIGEST = DigestUtils.getMd5Digest();
+  // MessageDigest is not thread-safe, and analyses can run in parallel
+  private static final ThreadLocal<WhitespaceSkippingDigester> MD5_DIGESTER = ThreadLocal
+    .withInitial(() -> new WhitespaceSkippingDigester(DigestUtils.getMd5Digest()));
 
   private DigestUtils() {
     // utility class, forbidden constructor
   }
 
-  public static String digest(String content) {
-    return encodeHexString(MD5_DIGEST.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+  /**
+   * Hexadecimal MD5 digest of the content, ignoring whitespace characters.
+   */
+  public static String digest(CharSequence content) {
+    return encodeHexString(MD5_DIGESTER.get().digest(content));
+  }
+
+  /**
+   * Same as {@code digest(content).hashCode()}, without creating the hexadecimal string.
+   */
+  public static int digestHashCode(CharSequence content) {
+    return digestHashCode(content, 0, content.length());
+  }
+
+  /**
+   * Same as {@code digest(content.subSequence(start, end)).hashCode()}, without creating the sub sequence nor the hexadecimal string.
+   */
+  public static int digestHashCode(CharSequence content, int start, int end) {
+    byte[] data = MD5_DIGESTER.get().digest(content, start, end);
+    int hash = 0;
+    for (byte b : data) {
+      hash = 31 * hash + DIGITS[(240 & b) >>> 4];
+      hash = 31 * hash + DIGITS[15 & b];
+    }
+    return hash;
   }
 
   private static MessageDigest getMd5Digest() {
@@ -26,7 +26,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Optional;
-import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
@@ -37,7 +36,7 @@ import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
  * @param <K> type of the key to store by and used when reading back; must be hashable
  * @param <V> type of the value to store
  */
-class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
+class IndexedObjectStore<K, V> implements ValidatingObjectStore<K, V> {
   private final Logger logger;
 
   private final StoreIndex<K> index;
@@ -66,30 +65,29 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
     }
   }
 
+  @Override
   public boolean contains(K key) {
     Path path = pathMapper.apply(key);
     return path.toFile().exists();
   }
 
-  /**
-   * Deletes all entries in the index that are no longer valid.
-   */
-  public void deleteInvalid() {
-    int counter = 0;
-    Collection<K> keys = index.keys();
+  @Override
+  public Collection<K> keys() {
+    return index.keys();
+  }
 
-    for (K k : keys) {
-      if (!validator.apply(k)) {
-        try {
-          counter++;
-          delete(k);
-        } catch (IOException e) {
-          Path path = pathMapper.apply(k);
-          logger.error(String.format("failed to delete file '%s' for invalidated key '%s'", path, k), e);
-        }
-      }
+  @Override
+  public boolean deleteIfInvalid(K key) {
+    if (validator.apply(key)) {
+      return false;
+    }
+    try {
+      delete(key);
+    } catch (IOException e) {
+      Path path = pathMapper.apply(key);
+      logger.error(String.format("failed to delete file '%s' for invalidated key '%s'", path, key), e);
     }
-    logger.debug(String.format("%d entries removed from the store", counter));
+    return true;
   }
 
   @Override
@@ -99,6 +97,16 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
     index.delete(key);
   }
 
+  @Override
+  public void clear() {
+    index.clear();
+  }
+
+  @Override
+  public void close() {
+    index.close();
+  }
+
   @Override
   public void write(K key, V value) throws IOException {
     Path path = pathMapper.apply(key);
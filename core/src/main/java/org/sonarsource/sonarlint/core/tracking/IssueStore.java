@@ -21,27 +21,74 @@ package org.sonarsource.sonarlint.core.tracking;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class IssueStore {
+
+  /**
+   * How the issues are laid out on disk.
+   */
+  public enum Backend {
+    /**
+     * One file per key, in a directory tree derived from the hash of the key.
+     */
+    FILE_PER_KEY,
+    /**
+     * Records appended to a small number of segment files, that are compacted in the background.
+     * Better suited to projects with many files.
+     */
+    SEGMENTS
+  }
+
+  private static final String SEGMENTS_DIR = "segments";
+  private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
   private Path basePath;
-  private IndexedObjectStore<String, Sonarlint.Issues> store;
+  private final Logger logger;
+  private ValidatingObjectStore<String, Sonarlint.Issues> store;
+  private final ExecutorService validationExecutor = Executors.newSingleThreadExecutor(IssueStore::newValidationThread);
+
+  // guards writes and deletions of the store, and the fields below
+  private final Object lock = new Object();
+  // sequence number of the last save of each key saved during this session
+  private final Map<String, Long> lastSaves = new HashMap<>();
+  // keys saved since they were last validated
+  private final Set<String> touched = new HashSet<>();
+  private long saves;
+  private boolean fullyValidated;
 
   public IssueStore(Path storeBasePath, Path projectBasePath, Logger logger) {
+    this(storeBasePath, projectBasePath, logger, Backend.FILE_PER_KEY);
+  }
+
+  public IssueStore(Path storeBasePath, Path projectBasePath, Logger logger, Backend backend) {
     this.basePath = storeBasePath;
+    this.logger = logger;
     FileUtils.mkdirs(storeBasePath);
-    StoreIndex<String> index = new StringStoreIndex(storeBasePath);
-    PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
     StoreKeyValidator<String> validator = new PathStoreKeyValidator(projectBasePath);
     Reader<Sonarlint.Issues> reader = is -> {
       try {
@@ -57,8 +104,19 @@ public class IssueStore {
         throw new IllegalStateException("Failed to save issues", e);
       }
     };
-    store = new IndexedObjectStore<>(index, mapper, reader, writer, validator, logger);
-    store.deleteInvalid();
+    if (backend == Backend.SEGMENTS) {
+      store = new SegmentObjectStore<>(storeBasePath.resolve(SEGMENTS_DIR), reader, writer, validator, logger);
+    } else {
+      PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
+      store = new IndexedObjectStore<>(new StringStoreIndex(storeBasePath), mapper, reader, writer, validator, logger);
+    }
+    validateInBackground(false, null);
+  }
+
+  private static Thread newValidationThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "sonarlint-issue-store-validator");
+    thread.setDaemon(true);
+    return thread;
   }
 
   public boolean contains(String key) {
@@ -66,7 +124,13 @@ public class IssueStore {
   }
 
   public void save(String key, Collection<Trackable> issues) throws IOException {
-    store.write(key, transform(issues));
+    Sonarlint.Issues protoIssues = transform(issues);
+    synchronized (lock) {
+      store.write(key, protoIssues);
+      saves++;
+      lastSaves.put(key, saves);
+      touched.add(key);
+    }
   }
 
   @CheckForNull
@@ -75,13 +139,115 @@ public class IssueStore {
     return issues.map(IssueStore::transform).orElse(null);
   }
 
+  /**
+   * Deletes the entries of files that no longer exist.
+   */
   public void clean() {
-    store.deleteInvalid();
+    validate(false, null);
+  }
+
+  /**
+   * Deletes the entries of files that no longer exist, in the calling thread.
+   * Until an entry is validated, it is considered valid.
+   * <p>
+   * An incremental validation only checks the keys saved since they were last validated.
+   * The first validation of the store is always a full one, since the state of previous sessions is unknown.
+   * Keys that are saved after the validation started are not checked: they are left to the next validation.
+   *
+   * @throws CanceledException if the monitor requests cancellation. Keys that were not checked yet are checked by the next validation.
+   */
+  public void validate(boolean incremental, @Nullable ProgressMonitor monitor) {
+    long validationStart;
+    synchronized (lock) {
+      validationStart = saves;
+    }
+    validate(incremental, validationStart, new ProgressWrapper(monitor));
+  }
+
+  /**
+   * Same as {@link #validate(boolean, ProgressMonitor)}, in a background thread.
+   * The validation can be canceled with the monitor or with the returned future.
+   */
+  public Future<?> validateInBackground(boolean incremental, @Nullable ProgressMonitor monitor) {
+    long validationStart;
+    synchronized (lock) {
+      validationStart = saves;
+    }
+    ProgressWrapper progress = new ProgressWrapper(monitor);
+    try {
+      return validationExecutor.submit(() -> {
+        try {
+          validate(incremental, validationStart, progress);
+        } catch (CanceledException e) {
+          logger.debug("Validation of the issue store canceled");
+        } catch (RuntimeException e) {
+          logger.error("Failed to validate the issue store", e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      throw new IllegalStateException("Issue store is closed", e);
+    }
+  }
+
+  private void validate(boolean incremental, long validationStart, ProgressWrapper progress) {
+    boolean full;
+    Collection<String> keys;
+    synchronized (lock) {
+      full = !incremental || !fullyValidated;
+      keys = full ? store.keys() : new ArrayList<>(touched);
+    }
+
+    int checked = 0;
+    int removed = 0;
+    for (String key : keys) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new CanceledException();
+      }
+      progress.setProgressAndCheckCancel("Validating issue store", (float) checked / keys.size());
+      checked++;
+      synchronized (lock) {
+        Long savedAt = lastSaves.get(key);
+        if (savedAt != null && savedAt > validationStart) {
+          continue;
+        }
+        touched.remove(key);
+        if (store.deleteIfInvalid(key)) {
+          removed++;
+        }
+      }
+    }
+
+    if (full) {
+      synchronized (lock) {
+        fullyValidated = true;
+      }
+    }
+    progress.setProgress("Validating issue store", 1.0f);
+    logger.debug(String.format("%d entries removed from the store", removed));
   }
 
   public void clear() {
-    FileUtils.deleteRecursively(basePath);
-    FileUtils.mkdirs(basePath);
+    synchronized (lock) {
+      store.clear();
+      FileUtils.deleteRecursively(basePath);
+      FileUtils.mkdirs(basePath);
+      lastSaves.clear();
+      touched.clear();
+      fullyValidated = true;
+    }
+  }
+
+  /**
+   * Cancel the validation in progress, and persist the state of the store that is still in memory.
+   */
+  public void close() {
+    validationExecutor.shutdownNow();
+    try {
+      validationExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    store.close();
   }
 
   private static Collection<Trackable> transform(Sonarlint.Issues protoIssues) {
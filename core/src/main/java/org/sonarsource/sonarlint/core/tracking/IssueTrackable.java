@@ -22,8 +22,6 @@ package org.sonarsource.sonarlint.core.tracking;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 
-import static org.sonarsource.sonarlint.core.tracking.DigestUtils.digest;
-
 public class IssueTrackable implements Trackable {
 
   private final Issue issue;
@@ -32,18 +30,26 @@ public class IssueTrackable implements Trackable {
   private final Integer lineHash;
 
   public IssueTrackable(Issue issue) {
-    this(issue, null, null, null);
+    this(issue, null, (String) null, null);
   }
 
   public IssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable String textRangeContent, @Nullable String lineContent) {
+    // text range hashes are never persisted nor sent by the server, so a cheaper hash is enough
+    this(issue, textRange, ContentHash.FAST.hashOrNull(textRangeContent), ContentHash.MD5_COMPATIBLE.hashOrNull(lineContent));
+  }
+
+  private IssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable Integer textRangeHash, @Nullable Integer lineHash) {
     this.issue = issue;
     this.textRange = textRange;
-    this.textRangeHash = hashOrNull(textRangeContent);
-    this.lineHash = hashOrNull(lineContent);
+    this.textRangeHash = textRangeHash;
+    this.lineHash = lineHash;
   }
 
-  private static Integer hashOrNull(@Nullable String content) {
-    return content != null ? digest(content).hashCode() : null;
+  /**
+   * Create a trackable taking its line hash from the precomputed hashes of the file, instead of hashing the line content again.
+   */
+  public static IssueTrackable withLineHashes(Issue issue, @Nullable TextRange textRange, @Nullable String textRangeContent, LineHashes lineHashes) {
+    return new IssueTrackable(issue, textRange, ContentHash.FAST.hashOrNull(textRangeContent), lineHashes.getHash(issue.getStartLine()));
   }
 
   @Override
@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface IssueTrackerCache {
 
@@ -31,6 +32,14 @@ public interface IssueTrackerCache {
 
   void put(String file, Collection<Trackable> trackables);
 
+  /**
+   * Register a listener of the files evicted from memory, to release what is kept about them.
+   * Caches that keep all files in memory never call it.
+   */
+  default void addEvictionListener(Consumer<String> listener) {
+    // nothing is ever evicted
+  }
+
   /**
    * Empty the cache, delete everything.
    */
@@ -0,0 +1,124 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.Collection;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Configuration of the in-memory part of {@link PersistentIssueTrackerCache}.
+ * The cache is bounded by the estimated memory retained by the trackables of the files it holds.
+ */
+@Immutable
+public class IssueTrackerCacheSettings {
+
+  public enum EvictionPolicy {
+    /**
+     * Evict the file accessed the longest time ago.
+     */
+    LRU,
+    /**
+     * Window TinyLFU: recently added files are kept in a small LRU window, and only get a place in the main space
+     * if they are accessed more often than the file they would replace.
+     * Resists to scans, for example when a whole project is analyzed once.
+     */
+    W_TINY_LFU
+  }
+
+  public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+  public static final int DEFAULT_TRACKABLE_WEIGHT = 512;
+
+  // map entry, key and collection
+  static final int ENTRY_OVERHEAD = 256;
+
+  private final long maxWeight;
+  private final int trackableWeight;
+  private final EvictionPolicy evictionPolicy;
+
+  private IssueTrackerCacheSettings(Builder builder) {
+    this.maxWeight = builder.maxWeight;
+    this.trackableWeight = builder.trackableWeight;
+    this.evictionPolicy = builder.evictionPolicy;
+  }
+
+  public static IssueTrackerCacheSettings defaults() {
+    return builder().build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Budget in bytes of the trackables kept in memory.
+   */
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Estimated number of bytes retained by one trackable.
+   */
+  public int getTrackableWeight() {
+    return trackableWeight;
+  }
+
+  public EvictionPolicy getEvictionPolicy() {
+    return evictionPolicy;
+  }
+
+  long weigh(Collection<Trackable> trackables) {
+    return ENTRY_OVERHEAD + (long) trackables.size() * trackableWeight;
+  }
+
+  public static class Builder {
+    private long maxWeight = DEFAULT_MAX_WEIGHT;
+    private int trackableWeight = DEFAULT_TRACKABLE_WEIGHT;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+    private Builder() {
+    }
+
+    public Builder setMaxWeight(long maxWeight) {
+      if (maxWeight <= 0) {
+        throw new IllegalArgumentException("Max weight must be positive: " + maxWeight);
+      }
+      this.maxWeight = maxWeight;
+      return this;
+    }
+
+    public Builder setTrackableWeight(int trackableWeight) {
+      if (trackableWeight < 0) {
+        throw new IllegalArgumentException("Trackable weight must not be negative: " + trackableWeight);
+      }
+      this.trackableWeight = trackableWeight;
+      return this;
+    }
+
+    public Builder setEvictionPolicy(EvictionPolicy evictionPolicy) {
+      this.evictionPolicy = evictionPolicy;
+      return this;
+    }
+
+    public IssueTrackerCacheSettings build() {
+      return new IssueTrackerCacheSettings(this);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Snapshot of the statistics of an issue tracker cache.
+ */
+@Immutable
+public class IssueTrackerCacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final int entryCount;
+  private final long weight;
+
+  IssueTrackerCacheStats(long hitCount, long missCount, long evictionCount, int entryCount, long weight) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.entryCount = entryCount;
+    this.weight = weight;
+  }
+
+  /**
+   * Number of reads of the trackables of a file that were served from memory.
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Number of reads of the trackables of a file that were not in memory.
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Number of files whose trackables were evicted from memory to the store.
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Number of files whose trackables are in memory.
+   */
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * Estimated number of bytes retained by the trackables in memory.
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("hits=%d, misses=%d, evictions=%d, entries=%d, weight=%d", hitCount, missCount, evictionCount, entryCount, weight);
+  }
+}
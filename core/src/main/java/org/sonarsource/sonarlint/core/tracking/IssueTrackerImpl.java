@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * {@inheritDoc}
@@ -33,14 +34,26 @@ public class IssueTrackerImpl implements IssueTracker {
    */
   @Override
   public Collection<Trackable> apply(Collection<Trackable> baseIssues, Collection<Trackable> nextIssues, boolean inheritSeverity) {
-    Collection<Trackable> trackedIssues = new ArrayList<>();
     Tracking<Trackable, Trackable> tracking = new Tracker<Trackable, Trackable>().track(() -> nextIssues, () -> baseIssues);
+    return combine(tracking.getMatchedRaws(), nextIssues, inheritSeverity);
+  }
 
-    tracking.getMatchedRaws().entrySet().stream()
-      .map(e -> new CombinedTrackable(e.getValue(), e.getKey(), inheritSeverity))
-      .forEach(trackedIssues::add);
+  /**
+   * Same as {@link #apply(Collection, Collection, boolean)}, with the base issues given by an index built by a previous tracking.
+   */
+  Collection<Trackable> apply(TrackedFileIndex baseIndex, Collection<Trackable> nextIssues, boolean inheritSeverity) {
+    return combine(baseIndex.match(nextIssues), nextIssues, inheritSeverity);
+  }
 
-    for (Trackable next : tracking.getUnmatchedRaws()) {
+  private static Collection<Trackable> combine(Map<Trackable, Trackable> matchedRaws, Collection<Trackable> nextIssues, boolean inheritSeverity) {
+    Collection<Trackable> trackedIssues = new ArrayList<>();
+    // follow the order of the raws rather than the one of the (identity) map of matches, so that the result is deterministic
+    for (Trackable next : nextIssues) {
+      Trackable base = matchedRaws.get(next);
+      if (base != null) {
+        trackedIssues.add(new CombinedTrackable(base, next, inheritSeverity));
+        continue;
+      }
       if (next.getServerIssueKey() != null) {
         // not matched with server anymore
         next = new DisconnectedTrackable(next);
@@ -0,0 +1,100 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Hashes of all the lines of a file content, computed in a single pass so that all the issues of the file share them.
+ * Hashes are compatible with the line hashes of {@link IssueTrackable}.
+ */
+public class LineHashes {
+
+  // hash of line N is at index N - 1
+  private final int[] hashes;
+  private final int contentLength;
+  private final int contentHash;
+
+  private LineHashes(int[] hashes, int contentLength, int contentHash) {
+    this.hashes = hashes;
+    this.contentLength = contentLength;
+    this.contentHash = contentHash;
+  }
+
+  public static LineHashes compute(CharSequence content) {
+    int[] hashes = new int[64];
+    int lines = 0;
+    int lineStart = 0;
+    int length = content.length();
+    for (int i = 0; i < length; i++) {
+      char c = content.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == length || content.charAt(i + 1) != '\n'))) {
+        if (lines == hashes.length) {
+          hashes = Arrays.copyOf(hashes, lines * 2);
+        }
+        hashes[lines++] = DigestUtils.digestHashCode(content, lineStart, i + 1);
+        lineStart = i + 1;
+      }
+    }
+    if (lines == hashes.length) {
+      hashes = Arrays.copyOf(hashes, lines + 1);
+    }
+    hashes[lines++] = DigestUtils.digestHashCode(content, lineStart, length);
+    return new LineHashes(Arrays.copyOf(hashes, lines), length, hashCode(content));
+  }
+
+  /**
+   * @param line the line index, starting with 1
+   * @return null if line is null or out of the content
+   */
+  @CheckForNull
+  public Integer getHash(@Nullable Integer line) {
+    if (line == null || line < 1 || line > hashes.length) {
+      return null;
+    }
+    return hashes[line - 1];
+  }
+
+  public int lineCount() {
+    return hashes.length;
+  }
+
+  /**
+   * Whether these hashes are still valid for the given content. Cheap for a {@link String}, which caches its hash code, while other
+   * contents are scanned.
+   */
+  public boolean isComputedFrom(CharSequence content) {
+    return content.length() == contentLength && hashCode(content) == contentHash;
+  }
+
+  private static int hashCode(CharSequence content) {
+    if (content instanceof String) {
+      return content.hashCode();
+    }
+    // same as String.hashCode()
+    int h = 0;
+    for (int i = 0; i < content.length(); i++) {
+      h = 31 * h + content.charAt(i);
+    }
+    return h;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Evicts the files accessed the longest time ago.
+ */
+class LruTrackablesMap extends WeightedTrackablesMap {
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+
+  LruTrackablesMap(IssueTrackerCacheSettings settings, BiConsumer<String, Collection<Trackable>> evictionListener) {
+    super(settings, evictionListener);
+  }
+
+  @Override
+  Collection<Trackable> get(String file) {
+    Entry entry = entries.get(file);
+    return entry != null ? entry.trackables : null;
+  }
+
+  @Override
+  boolean containsKey(String file) {
+    return entries.containsKey(file);
+  }
+
+  @Override
+  void put(String file, Collection<Trackable> trackables) {
+    Entry entry = new Entry(trackables, settings.weigh(trackables));
+    Entry previous = entries.put(file, entry);
+    weight += entry.weight - (previous != null ? previous.weight : 0);
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (weight > settings.getMaxWeight() && entries.size() > 1) {
+      Map.Entry<String, Entry> eldest = it.next();
+      it.remove();
+      weight -= eldest.getValue().weight;
+      evictionListener.accept(eldest.getKey(), eldest.getValue().trackables);
+    }
+  }
+
+  @Override
+  void forEach(BiConsumer<String, Collection<Trackable>> action) {
+    entries.forEach((file, entry) -> action.accept(file, entry.trackables));
+  }
+
+  @Override
+  void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  @Override
+  int size() {
+    return entries.size();
+  }
+
+  @Override
+  long weight() {
+    return weight;
+  }
+}
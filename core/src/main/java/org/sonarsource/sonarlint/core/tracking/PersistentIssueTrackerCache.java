@@ -22,62 +22,76 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
   private final Logger logger;
 
-  static final int MAX_ENTRIES = 100;
+  static final int MAX_PENDING_WRITES = 100;
+  static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
 
-  private final IssueStore store;
-  private final Map<String, Collection<Trackable>> cache;
+  private final WriteBehindIssueStore store;
+  private final WeightedTrackablesMap cache;
+  private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
 
   public PersistentIssueTrackerCache(IssueStore store, Logger logger) {
+    this(store, logger, IssueTrackerCacheSettings.defaults());
+  }
+
+  public PersistentIssueTrackerCache(IssueStore store, Logger logger, IssueTrackerCacheSettings settings) {
+    this(new WriteBehindIssueStore(store, logger, MAX_PENDING_WRITES), logger, settings);
+  }
+
+  PersistentIssueTrackerCache(IssueStore store, Logger logger, IssueTrackerCacheSettings settings, Executor writer) {
+    this(new WriteBehindIssueStore(store, logger, MAX_PENDING_WRITES, writer), logger, settings);
+  }
+
+  private PersistentIssueTrackerCache(WriteBehindIssueStore store, Logger logger, IssueTrackerCacheSettings settings) {
     this.store = store;
-    this.cache = new LimitedSizeLinkedHashMap();
+    // entries evicted from memory are queued to be persisted
+    this.cache = WeightedTrackablesMap.create(settings, this::evicted);
     this.logger = logger;
   }
 
-  /**
-   * Keeps a maximum number of entries in the map. On insertion, if the limit is passed, the entry accessed the longest time ago
-   * is flushed into cache and removed from the map.
-   */
-  private class LimitedSizeLinkedHashMap extends LinkedHashMap<String, Collection<Trackable>> {
-    LimitedSizeLinkedHashMap() {
-      super(MAX_ENTRIES, 0.75f, true);
-    }
-
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<String, Collection<Trackable>> eldest) {
-      if (size() <= MAX_ENTRIES) {
-        return false;
-      }
+  private void evicted(String file, Collection<Trackable> trackables) {
+    evictionCount++;
+    store.save(file, trackables);
+    evictionListeners.forEach(listener -> listener.accept(file));
+  }
 
-      String key = eldest.getKey();
-      try {
-        logger.debug("Persisting issues for " + key);
-        store.save(key, eldest.getValue());
-      } catch (IOException e) {
-        throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
-      }
-      return true;
-    }
+  @Override
+  public void addEvictionListener(Consumer<String> listener) {
+    evictionListeners.add(listener);
   }
 
   @Override
   public boolean isFirstAnalysis(String file) {
-    return !cache.containsKey(file) && !store.contains(file);
+    synchronized (this) {
+      if (cache.containsKey(file)) {
+        return false;
+      }
+    }
+    return !store.contains(file);
   }
 
   @Override
   public synchronized Collection<Trackable> getLiveOrFail(String file) {
     Collection<Trackable> liveTrackables = cache.get(file);
     if (liveTrackables != null) {
+      hitCount++;
       return liveTrackables;
     }
 
+    missCount++;
     throw new IllegalStateException("No issues in cache for file: " + file);
   }
 
@@ -85,12 +99,17 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
    * Read issues from a file that is cached. On cache miss, it won't fallback to the persistent store.
    */
   @Override
-  public synchronized Collection<Trackable> getCurrentTrackables(String file) {
-    Collection<Trackable> liveTrackables = cache.get(file);
-    if (liveTrackables != null) {
-      return liveTrackables;
+  public Collection<Trackable> getCurrentTrackables(String file) {
+    synchronized (this) {
+      Collection<Trackable> liveTrackables = cache.get(file);
+      if (liveTrackables != null) {
+        hitCount++;
+        return liveTrackables;
+      }
+      missCount++;
     }
 
+    // don't block other files while reading from disk
     try {
       Collection<Trackable> storedTrackables = store.read(file);
       if (storedTrackables != null) {
@@ -114,22 +133,26 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   }
 
   /**
-   * Flushes all cached entries to disk.
+   * Flushes all cached entries to disk, and waits for the writes to complete.
    * It does not clear the cache.
    */
   public synchronized void flushAll() {
     logger.debug("Persisting all issues");
-    cache.forEach((path, trackables) -> {
-      try {
-        store.save(path, trackables);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to flush cache", e);
-      }
-    });
+    int failuresBefore = store.failures();
+    cache.forEach(store::save);
+    if (!store.awaitPendingWrites(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS) || store.failures() != failuresBefore) {
+      throw new IllegalStateException("Failed to flush cache");
+    }
+  }
+
+  public synchronized IssueTrackerCacheStats getStats() {
+    return new IssueTrackerCacheStats(hitCount, missCount, evictionCount, cache.size(), cache.weight());
   }
 
   @Override
   public synchronized void shutdown() {
-    flushAll();
+    logger.debug("Persisting all issues");
+    cache.forEach(store::save);
+    store.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
   }
 }
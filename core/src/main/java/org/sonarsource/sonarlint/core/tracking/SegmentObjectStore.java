@@ -0,0 +1,522 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An ObjectStore that appends records to a small number of segment files, instead of using a file per key.
+ * <p>
+ * An in-memory index maps each key to the location of its latest record. It is rebuilt by scanning the segments
+ * when the store is opened. Segments are memory-mapped for reads.
+ * Overwritten and deleted records stay in their segment until it is compacted in the background:
+ * its live records are appended to the active segment, and the segment file is deleted.
+ * <p>
+ * A record is made of: the length of the rest of the record (int), the CRC32 of the rest of the record (int),
+ * the type of the record (byte), the length of the key (int), the key in UTF-8, the value.
+ * A truncated record or a record that doesn't match its checksum is the remain of an interrupted write:
+ * it marks the end of the segment.
+ *
+ * @param <V> type of the value to store
+ */
+class SegmentObjectStore<V> implements ValidatingObjectStore<String, V> {
+  static final long DEFAULT_MAX_SEGMENT_SIZE = 4L * 1024 * 1024;
+
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final byte PUT = 0;
+  private static final byte DELETE = 1;
+  // length and checksum
+  private static final int RECORD_PREFIX = 8;
+  // type and key length
+  private static final int RECORD_HEADER = 5;
+  private static final ByteBuffer NO_VALUE = ByteBuffer.allocate(0);
+
+  private final Path basePath;
+  private final Reader<V> reader;
+  private final Writer<V> writer;
+  private final StoreKeyValidator<String> validator;
+  private final Logger logger;
+  private final long maxSegmentSize;
+  private final Executor compactor;
+
+  // all segment files, by increasing age of their records
+  private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+  private final Map<String, Location> index = new HashMap<>();
+  @CheckForNull
+  private Segment active;
+  private boolean compactionScheduled;
+  private boolean closed;
+
+  SegmentObjectStore(Path basePath, Reader<V> reader, Writer<V> writer, StoreKeyValidator<String> validator, Logger logger) {
+    this(basePath, reader, writer, validator, logger, DEFAULT_MAX_SEGMENT_SIZE, Executors.newSingleThreadExecutor(SegmentObjectStore::newCompactorThread));
+  }
+
+  SegmentObjectStore(Path basePath, Reader<V> reader, Writer<V> writer, StoreKeyValidator<String> validator, Logger logger,
+    long maxSegmentSize, Executor compactor) {
+    this.basePath = basePath;
+    this.reader = reader;
+    this.writer = writer;
+    this.validator = validator;
+    this.logger = logger;
+    this.maxSegmentSize = maxSegmentSize;
+    this.compactor = compactor;
+    open();
+  }
+
+  private static Thread newCompactorThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "sonarlint-issue-store-compactor");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private synchronized void open() {
+    try {
+      Files.createDirectories(basePath);
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(basePath, "*" + SEGMENT_SUFFIX)) {
+        for (Path path : stream) {
+          Integer id = segmentId(path);
+          if (id != null) {
+            segments.put(id, new Segment(id, path));
+          }
+        }
+      }
+      boolean complete = true;
+      for (Segment segment : segments.values()) {
+        complete = load(segment);
+      }
+      if (complete && !segments.isEmpty()) {
+        active = segments.lastEntry().getValue();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open the store in " + basePath, e);
+    }
+    for (Segment segment : new ArrayList<>(segments.values())) {
+      scheduleCompactionIfNeeded(segment);
+    }
+  }
+
+  @CheckForNull
+  private static Integer segmentId(Path path) {
+    String name = path.getFileName().toString();
+    try {
+      return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Add the records of the segment to the index.
+   *
+   * @return false if the segment ends with an incomplete record
+   */
+  private boolean load(Segment segment) throws IOException {
+    ByteBuffer buffer = segment.slice(0, (int) segment.size);
+    while (buffer.remaining() >= RECORD_PREFIX) {
+      int position = buffer.position();
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length < RECORD_HEADER || length > buffer.remaining() || checksum(buffer, position + RECORD_PREFIX, length) != checksum) {
+        break;
+      }
+      byte type = buffer.get();
+      int keyLength = buffer.getInt();
+      if (keyLength < 0 || keyLength > length - RECORD_HEADER) {
+        break;
+      }
+      String key = readKey(buffer, keyLength);
+      int recordSize = RECORD_PREFIX + length;
+      int valueOffset = buffer.position();
+      buffer.position(position + recordSize);
+      if (type == PUT) {
+        swapLocation(key, new Location(segment, valueOffset, position + recordSize - valueOffset, recordSize));
+      } else {
+        swapLocation(key, null);
+        segment.deadBytes += recordSize;
+      }
+    }
+    if (buffer.position() < segment.size) {
+      logger.debug(String.format("Ignoring %d bytes of incomplete records at the end of '%s'", segment.size - buffer.position(), segment.path));
+      segment.size = buffer.position();
+      return false;
+    }
+    return true;
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset, int length) {
+    ByteBuffer content = buffer.duplicate();
+    content.limit(offset + length);
+    content.position(offset);
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    return (int) crc.getValue();
+  }
+
+  private static String readKey(ByteBuffer buffer, int keyLength) {
+    byte[] keyBytes = new byte[keyLength];
+    buffer.get(keyBytes);
+    return new String(keyBytes, UTF_8);
+  }
+
+  @Override
+  public Optional<V> read(String key) throws IOException {
+    ByteBuffer value;
+    synchronized (this) {
+      Location location = index.get(key);
+      if (location == null) {
+        return Optional.empty();
+      }
+      value = location.segment.slice(location.valueOffset, location.valueLength);
+    }
+    return Optional.of(reader.apply(new ByteBufferInputStream(value)));
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  public void write(String key, V value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.accept(out, value);
+    ByteBuffer bytes = ByteBuffer.wrap(out.toByteArray());
+    synchronized (this) {
+      replaceLocation(key, append(PUT, key.getBytes(UTF_8), bytes));
+    }
+  }
+
+  @Override
+  public synchronized void delete(String key) throws IOException {
+    if (!index.containsKey(key)) {
+      return;
+    }
+    Location tombstone = append(DELETE, key.getBytes(UTF_8), NO_VALUE);
+    tombstone.segment.deadBytes += tombstone.recordSize;
+    replaceLocation(key, null);
+  }
+
+  @Override
+  public synchronized Collection<String> keys() {
+    return new ArrayList<>(index.keySet());
+  }
+
+  @Override
+  public boolean deleteIfInvalid(String key) {
+    if (validator.apply(key)) {
+      return false;
+    }
+    try {
+      delete(key);
+    } catch (IOException e) {
+      logger.error(String.format("failed to delete invalidated key '%s'", key), e);
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void clear() {
+    closeSegments();
+    segments.clear();
+    index.clear();
+    active = null;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      for (Segment segment : new ArrayList<>(segments.values())) {
+        if (segment.retired) {
+          deleteSegment(segment);
+        }
+      }
+      closeSegments();
+      closed = true;
+    }
+    if (compactor instanceof ExecutorService) {
+      ((ExecutorService) compactor).shutdown();
+    }
+  }
+
+  private void closeSegments() {
+    for (Segment segment : segments.values()) {
+      try {
+        segment.close();
+      } catch (IOException e) {
+        logger.error(String.format("failed to close segment '%s'", segment.path), e);
+      }
+    }
+  }
+
+  private void replaceLocation(String key, @CheckForNull Location location) {
+    Segment previous = swapLocation(key, location);
+    if (previous != null) {
+      scheduleCompactionIfNeeded(previous);
+    }
+  }
+
+  /**
+   * Update the location of the key in the index, and account for its previous record as dead.
+   *
+   * @return the segment of the previous record, if any
+   */
+  @CheckForNull
+  private Segment swapLocation(String key, @CheckForNull Location location) {
+    Location previous = location != null ? index.put(key, location) : index.remove(key);
+    if (previous == null) {
+      return null;
+    }
+    previous.segment.deadBytes += previous.recordSize;
+    return previous.segment;
+  }
+
+  private Location append(byte type, byte[] key, ByteBuffer value) throws IOException {
+    Segment segment = activeSegment();
+    int valueLength = value.remaining();
+    int length = RECORD_HEADER + key.length + valueLength;
+    ByteBuffer record = ByteBuffer.allocate(RECORD_PREFIX + length);
+    record.putInt(length).putInt(0).put(type).putInt(key.length).put(key).put(value.duplicate());
+    record.putInt(4, checksum(record, RECORD_PREFIX, length));
+    record.flip();
+    long offset = segment.append(record);
+    return new Location(segment, offset + RECORD_PREFIX + RECORD_HEADER + key.length, valueLength, RECORD_PREFIX + length);
+  }
+
+  private Segment activeSegment() throws IOException {
+    if (active == null || active.size >= maxSegmentSize) {
+      int id = segments.isEmpty() ? 0 : (segments.lastKey() + 1);
+      Files.createDirectories(basePath);
+      active = new Segment(id, basePath.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX)));
+      segments.put(id, active);
+    }
+    return active;
+  }
+
+  private void scheduleCompactionIfNeeded(Segment segment) {
+    if (compactionScheduled || closed || segment == active || !(segment.retired || segment.isMostlyDead())) {
+      return;
+    }
+    compactionScheduled = true;
+    try {
+      compactor.execute(this::compact);
+    } catch (RejectedExecutionException e) {
+      compactionScheduled = false;
+      logger.debug("Compaction of the store skipped", e);
+    }
+  }
+
+  /**
+   * Compact all segments that contain mostly dead records, one segment at a time so that writers are not blocked for long.
+   */
+  void compact() {
+    List<Integer> ids;
+    synchronized (this) {
+      compactionScheduled = false;
+      ids = new ArrayList<>(segments.keySet());
+    }
+    for (Integer id : ids) {
+      synchronized (this) {
+        Segment segment = segments.get(id);
+        if (closed || segment == null || segment == active || !(segment.retired || segment.isMostlyDead())) {
+          continue;
+        }
+        try {
+          compact(segment);
+        } catch (IOException e) {
+          logger.error(String.format("failed to compact segment '%s'", segment.path), e);
+          return;
+        }
+      }
+    }
+  }
+
+  private void compact(Segment segment) throws IOException {
+    if (!segment.retired) {
+      // tombstones are only useful if an older segment may still contain a record for their key
+      boolean oldest = segments.firstKey() == segment.id;
+      ByteBuffer buffer = segment.slice(0, (int) segment.size);
+      while (buffer.hasRemaining()) {
+        int position = buffer.position();
+        int recordSize = RECORD_PREFIX + buffer.getInt();
+        buffer.position(position + RECORD_PREFIX);
+        byte type = buffer.get();
+        byte[] keyBytes = new byte[buffer.getInt()];
+        buffer.get(keyBytes);
+        String key = new String(keyBytes, UTF_8);
+        int valueOffset = buffer.position();
+        buffer.position(position + recordSize);
+
+        if (type == PUT) {
+          Location location = index.get(key);
+          if (location != null && location.segment == segment && location.valueOffset == valueOffset) {
+            ByteBuffer value = buffer.duplicate();
+            value.limit(position + recordSize);
+            value.position(valueOffset);
+            index.put(key, append(PUT, keyBytes, value));
+          }
+        } else if (!oldest && !index.containsKey(key)) {
+          Location tombstone = append(DELETE, keyBytes, NO_VALUE);
+          tombstone.segment.deadBytes += tombstone.recordSize;
+        }
+      }
+      // from now on the segment only contains records that are also elsewhere
+      segment.retired = true;
+    }
+    deleteSegment(segment);
+  }
+
+  private void deleteSegment(Segment segment) {
+    try {
+      segment.close();
+      Files.deleteIfExists(segment.path);
+      segments.remove(segment.id);
+    } catch (IOException e) {
+      // for example on Windows while the file is still mapped: it will be deleted by a later compaction
+      logger.debug(String.format("failed to delete segment '%s'", segment.path), e);
+    }
+  }
+
+  private static class Location {
+    private final Segment segment;
+    private final long valueOffset;
+    private final int valueLength;
+    private final int recordSize;
+
+    private Location(Segment segment, long valueOffset, int valueLength, int recordSize) {
+      this.segment = segment;
+      this.valueOffset = valueOffset;
+      this.valueLength = valueLength;
+      this.recordSize = recordSize;
+    }
+  }
+
+  private static class Segment {
+    private final int id;
+    private final Path path;
+    @CheckForNull
+    private FileChannel channel;
+    @CheckForNull
+    private MappedByteBuffer mapped;
+    private long size;
+    private long deadBytes;
+    private boolean retired;
+
+    private Segment(int id, Path path) throws IOException {
+      this.id = id;
+      this.path = path;
+      this.size = channel().size();
+    }
+
+    private FileChannel channel() throws IOException {
+      if (channel == null) {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      return channel;
+    }
+
+    private boolean isMostlyDead() {
+      return size > 0 && deadBytes * 2 >= size;
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+      long offset = size;
+      FileChannel ch = channel();
+      while (record.hasRemaining()) {
+        size += ch.write(record, size);
+      }
+      return offset;
+    }
+
+    private ByteBuffer slice(long offset, int length) throws IOException {
+      if (mapped == null || mapped.capacity() < offset + length) {
+        mapped = channel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      ByteBuffer buffer = mapped.duplicate();
+      buffer.limit((int) (offset + length));
+      buffer.position((int) offset);
+      return buffer.slice();
+    }
+
+    private void close() throws IOException {
+      mapped = null;
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
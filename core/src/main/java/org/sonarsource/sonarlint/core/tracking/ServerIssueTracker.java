@@ -20,8 +20,11 @@
 package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
@@ -30,6 +33,11 @@ import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 
 public class ServerIssueTracker {
 
+  /**
+   * Below that number of files, issues are downloaded file by file: downloading the issues of the whole module would be a waste.
+   */
+  static final int MODULE_DOWNLOAD_THRESHOLD = 10;
+
   private final Logger logger;
   private final Console console;
   private final CachingIssueTracker issueTracker;
@@ -41,20 +49,40 @@ public class ServerIssueTracker {
   }
 
   public void update(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey, Collection<String> fileKeys) {
-    update(fileKeys, fileKey -> fetchServerIssues(serverConfiguration, engine, moduleKey, fileKey));
+    if (fileKeys.size() < MODULE_DOWNLOAD_THRESHOLD) {
+      update(fileKeys, () -> {
+        Map<String, List<ServerIssue>> serverIssuesByFile = new HashMap<>();
+        for (String fileKey : fileKeys) {
+          serverIssuesByFile.put(fileKey, fetchServerIssues(serverConfiguration, engine, moduleKey, fileKey));
+        }
+        return serverIssuesByFile;
+      });
+    } else {
+      update(fileKeys, () -> fetchServerIssues(serverConfiguration, engine, moduleKey, fileKeys));
+    }
   }
 
   public void update(ConnectedSonarLintEngine engine, String moduleKey, Collection<String> fileKeys) {
-    update(fileKeys, fileKey -> engine.getServerIssues(moduleKey, fileKey));
+    if (fileKeys.size() == 1) {
+      String fileKey = fileKeys.iterator().next();
+      update(fileKeys, () -> Collections.singletonMap(fileKey, engine.getServerIssues(moduleKey, fileKey)));
+    } else {
+      update(fileKeys, () -> engine.getServerIssues(moduleKey, fileKeys));
+    }
   }
 
-  private void update(Collection<String> fileKeys, Function<String, List<ServerIssue>> issueGetter) {
+  private void update(Collection<String> fileKeys, Supplier<Map<String, List<ServerIssue>>> issuesGetter) {
+    if (fileKeys.isEmpty()) {
+      return;
+    }
     try {
-      for (String fileKey : fileKeys) {
-        List<ServerIssue> serverIssues = issueGetter.apply(fileKey);
+      Map<String, List<ServerIssue>> serverIssuesByFile = issuesGetter.get();
+      // tracking is done per file, so files can be tracked in parallel
+      fileKeys.parallelStream().forEach(fileKey -> {
+        List<ServerIssue> serverIssues = serverIssuesByFile.getOrDefault(fileKey, Collections.emptyList());
         Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
         issueTracker.matchAndTrackAsBase(fileKey, serverIssuesTrackable);
-      }
+      });
     } catch (Exception e) {
       String message = "error while fetching and matching server issues";
       console.error(message, e);
@@ -72,4 +100,16 @@ public class ServerIssueTracker {
       return engine.getServerIssues(moduleKey, fileKey);
     }
   }
+
+  private Map<String, List<ServerIssue>> fetchServerIssues(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey,
+    Collection<String> fileKeys) {
+    try {
+      logger.debug("fetchServerIssues moduleKey=" + moduleKey + ", " + fileKeys.size() + " files");
+      return engine.downloadServerIssues(serverConfiguration, moduleKey, fileKeys);
+    } catch (DownloadException e) {
+      logger.debug("failed to download server issues", e);
+      console.info(e.getMessage());
+      return engine.getServerIssues(moduleKey, fileKeys);
+    }
+  }
 }
@@ -28,4 +28,16 @@ interface StoreIndex<T> {
   void save(T key, Path path);
 
   void delete(T key);
+
+  /**
+   * Forget all keys. Persisted files are expected to be deleted by the caller.
+   */
+  void clear();
+
+  /**
+   * Release resources and make sure that the index is fully persisted.
+   */
+  default void close() {
+    // nothing to do by default
+  }
 }
@@ -19,21 +19,38 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 
+/**
+ * Index kept in memory, persisted as a snapshot file and a journal of the changes since the snapshot.
+ * Each change only appends a record to the journal. The journal is merged into a new snapshot when it grows
+ * bigger than the index, and on {@link #close()}. After a crash, the journal is replayed on top of the snapshot.
+ */
 class StringStoreIndex implements StoreIndex<String> {
   private static final String DEFAULT_INDEX_FILENAME = "index.pb";
+  private static final String JOURNAL_SUFFIX = ".journal";
+  private static final int MIN_JOURNAL_ENTRIES_BEFORE_COMPACTION = 1000;
 
   private final Path storeBasePath;
   private final Path indexFilePath;
+  private final Path journalFilePath;
+
+  // loaded on first use
+  private Map<String, String> mappedPathByKey;
+  private int journalEntries;
 
   public StringStoreIndex(Path storeBasePath) {
     this(storeBasePath, DEFAULT_INDEX_FILENAME);
@@ -42,14 +59,26 @@ class StringStoreIndex implements StoreIndex<String> {
   protected StringStoreIndex(Path storeBasePath, String indexFileName) {
     this.storeBasePath = storeBasePath;
     this.indexFilePath = storeBasePath.resolve(indexFileName);
+    this.journalFilePath = storeBasePath.resolve(indexFileName + JOURNAL_SUFFIX);
   }
 
   @Override
-  public Collection<String> keys() {
-    return load().keySet();
+  public synchronized Collection<String> keys() {
+    return Collections.unmodifiableCollection(new ArrayList<>(load().keySet()));
   }
 
   private Map<String, String> load() {
+    if (mappedPathByKey == null) {
+      mappedPathByKey = new HashMap<>(loadSnapshot());
+      if (replayJournal() > 0) {
+        // recover from a crash: start again from a clean snapshot
+        compact();
+      }
+    }
+    return mappedPathByKey;
+  }
+
+  private Map<String, String> loadSnapshot() {
     if (!indexFilePath.toFile().exists()) {
       return Collections.emptyMap();
     }
@@ -60,26 +89,96 @@ class StringStoreIndex implements StoreIndex<String> {
     }
   }
 
+  private int replayJournal() {
+    if (!journalFilePath.toFile().exists()) {
+      return 0;
+    }
+    int replayed = 0;
+    try (InputStream stream = new BufferedInputStream(Files.newInputStream(journalFilePath))) {
+      Sonarlint.StorageIndexJournalEntry entry;
+      while ((entry = Sonarlint.StorageIndexJournalEntry.parseDelimitedFrom(stream)) != null) {
+        apply(entry);
+        replayed++;
+      }
+    } catch (IOException e) {
+      // the last record may be truncated by a crash, the ones before are valid
+      replayed++;
+    }
+    return replayed;
+  }
+
+  private void apply(Sonarlint.StorageIndexJournalEntry entry) {
+    if (entry.getDeleted()) {
+      mappedPathByKey.remove(entry.getKey());
+    } else {
+      mappedPathByKey.put(entry.getKey(), entry.getMappedPath());
+    }
+  }
+
   @Override
-  public void save(String storageKey, Path path) {
+  public synchronized void save(String storageKey, Path path) {
     String relativeMappedPath = storeBasePath.relativize(path).toString();
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.putMappedPathByKey(storageKey, relativeMappedPath);
-    save(builder.build());
+    if (relativeMappedPath.equals(load().put(storageKey, relativeMappedPath))) {
+      return;
+    }
+    append(Sonarlint.StorageIndexJournalEntry.newBuilder()
+      .setKey(storageKey)
+      .setMappedPath(relativeMappedPath)
+      .build());
   }
 
   @Override
-  public void delete(String storageKey) {
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.removeMappedPathByKey(storageKey);
-    save(builder.build());
+  public synchronized void delete(String storageKey) {
+    if (load().remove(storageKey) == null) {
+      return;
+    }
+    append(Sonarlint.StorageIndexJournalEntry.newBuilder()
+      .setKey(storageKey)
+      .setDeleted(true)
+      .build());
+  }
+
+  @Override
+  public synchronized void clear() {
+    mappedPathByKey = null;
+    journalEntries = 0;
+  }
+
+  /**
+   * Write a snapshot of the index and remove the journal.
+   */
+  @Override
+  public synchronized void close() {
+    if (mappedPathByKey != null && journalEntries > 0) {
+      compact();
+    }
+  }
+
+  private void append(Sonarlint.StorageIndexJournalEntry entry) {
+    try (OutputStream stream = Files.newOutputStream(journalFilePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      entry.writeDelimitedTo(stream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write local issue store index journal", e);
+    }
+    journalEntries++;
+    if (journalEntries > Math.max(MIN_JOURNAL_ENTRIES_BEFORE_COMPACTION, mappedPathByKey.size())) {
+      compact();
+    }
   }
 
-  private void save(Sonarlint.StorageIndex index) {
-    try (OutputStream stream = Files.newOutputStream(indexFilePath)) {
-      index.writeTo(stream);
+  private void compact() {
+    Path tempFilePath = indexFilePath.resolveSibling(indexFilePath.getFileName() + ".tmp");
+    try {
+      try (OutputStream stream = Files.newOutputStream(tempFilePath)) {
+        Sonarlint.StorageIndex.newBuilder()
+          .putAllMappedPathByKey(mappedPathByKey)
+          .build()
+          .writeTo(stream);
+      }
+      // if interrupted before the journal is deleted, replaying it over the new snapshot gives the same index
+      Files.move(tempFilePath, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Files.deleteIfExists(journalFilePath);
+      journalEntries = 0;
     } catch (IOException e) {
       throw new IllegalStateException("Failed to write local issue store index", e);
     }
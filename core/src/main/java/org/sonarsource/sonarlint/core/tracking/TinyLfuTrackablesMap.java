@@ -0,0 +1,311 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import javax.annotation.CheckForNull;
+
+/**
+ * Window TinyLFU eviction: new files enter a small LRU window. Files overflowing the window are candidates to enter
+ * the main space, made of a probation and a protected segment, and are admitted only if their estimated access
+ * frequency is higher than the one of the file they would replace. Files accessed again while in probation are
+ * promoted to the protected segment.
+ */
+class TinyLfuTrackablesMap extends WeightedTrackablesMap {
+
+  private static final int WINDOW_PERCENT = 1;
+  private static final int PROTECTED_PERCENT = 80;
+
+  private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+  private final long maxWindowWeight;
+  private final long maxProtectedWeight;
+  private final FrequencySketch sketch;
+
+  private long windowWeight;
+  private long probationWeight;
+  private long protectedWeight;
+
+  TinyLfuTrackablesMap(IssueTrackerCacheSettings settings, BiConsumer<String, Collection<Trackable>> evictionListener) {
+    super(settings, evictionListener);
+    long maxWeight = settings.getMaxWeight();
+    this.maxWindowWeight = Math.max(1, maxWeight * WINDOW_PERCENT / 100);
+    this.maxProtectedWeight = (maxWeight - maxWindowWeight) * PROTECTED_PERCENT / 100;
+    this.sketch = new FrequencySketch((int) Math.min(1 << 16, Math.max(16, maxWeight / IssueTrackerCacheSettings.ENTRY_OVERHEAD)));
+  }
+
+  @Override
+  Collection<Trackable> get(String file) {
+    sketch.increment(file);
+    Entry entry = window.get(file);
+    if (entry == null) {
+      entry = protectedSegment.get(file);
+    }
+    if (entry == null) {
+      entry = probation.remove(file);
+      if (entry != null) {
+        probationWeight -= entry.weight;
+        promote(file, entry);
+      }
+    }
+    return entry != null ? entry.trackables : null;
+  }
+
+  @Override
+  boolean containsKey(String file) {
+    return window.containsKey(file) || probation.containsKey(file) || protectedSegment.containsKey(file);
+  }
+
+  @Override
+  void put(String file, Collection<Trackable> trackables) {
+    sketch.increment(file);
+    Entry entry = new Entry(trackables, settings.weigh(trackables));
+    Entry previous;
+    if ((previous = replace(protectedSegment, file, entry)) != null) {
+      protectedWeight += entry.weight - previous.weight;
+    } else if ((previous = replace(probation, file, entry)) != null) {
+      probationWeight += entry.weight - previous.weight;
+    } else {
+      previous = window.put(file, entry);
+      windowWeight += entry.weight - (previous != null ? previous.weight : 0);
+    }
+    evict(file);
+  }
+
+  @CheckForNull
+  private static Entry replace(Map<String, Entry> segment, String file, Entry entry) {
+    return segment.containsKey(file) ? segment.put(file, entry) : null;
+  }
+
+  private void promote(String file, Entry entry) {
+    protectedSegment.put(file, entry);
+    protectedWeight += entry.weight;
+    Iterator<Map.Entry<String, Entry>> it = protectedSegment.entrySet().iterator();
+    while (protectedWeight > maxProtectedWeight && protectedSegment.size() > 1) {
+      Map.Entry<String, Entry> demoted = it.next();
+      it.remove();
+      protectedWeight -= demoted.getValue().weight;
+      probation.put(demoted.getKey(), demoted.getValue());
+      probationWeight += demoted.getValue().weight;
+    }
+  }
+
+  private void evict(String lastPut) {
+    Deque<Map.Entry<String, Entry>> candidates = new ArrayDeque<>();
+    Iterator<Map.Entry<String, Entry>> windowIt = window.entrySet().iterator();
+    while (windowWeight > maxWindowWeight && window.size() > 1) {
+      Map.Entry<String, Entry> eldest = windowIt.next();
+      windowIt.remove();
+      windowWeight -= eldest.getValue().weight;
+      candidates.add(eldest);
+    }
+
+    for (Map.Entry<String, Entry> candidate : candidates) {
+      admitOrReject(candidate, lastPut);
+    }
+
+    // replaced entries can grow, and a single entry can be heavier than the main space
+    while (weight() > settings.getMaxWeight()) {
+      Map.Entry<String, Entry> victim = firstVictim(lastPut);
+      if (victim == null) {
+        victim = removeEldest(window, lastPut);
+        if (victim == null) {
+          return;
+        }
+        windowWeight -= victim.getValue().weight;
+      } else {
+        removeFromMain(victim);
+      }
+      evicted(victim);
+    }
+  }
+
+  private void admitOrReject(Map.Entry<String, Entry> candidate, String lastPut) {
+    long candidateWeight = candidate.getValue().weight;
+    while (weight() + candidateWeight > settings.getMaxWeight()) {
+      Map.Entry<String, Entry> victim = firstVictim(lastPut);
+      if (victim == null) {
+        break;
+      }
+      if (sketch.frequency(candidate.getKey()) <= sketch.frequency(victim.getKey())) {
+        evicted(candidate);
+        return;
+      }
+      removeFromMain(victim);
+      evicted(victim);
+    }
+    probation.put(candidate.getKey(), candidate.getValue());
+    probationWeight += candidateWeight;
+  }
+
+  /**
+   * Least recently used entry of the main space, probation first.
+   */
+  @CheckForNull
+  private Map.Entry<String, Entry> firstVictim(String lastPut) {
+    Map.Entry<String, Entry> victim = eldest(probation, lastPut);
+    return victim != null ? victim : eldest(protectedSegment, lastPut);
+  }
+
+  @CheckForNull
+  private static Map.Entry<String, Entry> eldest(Map<String, Entry> segment, String excluded) {
+    for (Map.Entry<String, Entry> entry : segment.entrySet()) {
+      if (!entry.getKey().equals(excluded)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  @CheckForNull
+  private static Map.Entry<String, Entry> removeEldest(Map<String, Entry> segment, String excluded) {
+    Iterator<Map.Entry<String, Entry>> it = segment.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Entry> entry = it.next();
+      if (!entry.getKey().equals(excluded)) {
+        it.remove();
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private void removeFromMain(Map.Entry<String, Entry> victim) {
+    String file = victim.getKey();
+    if (probation.remove(file) != null) {
+      probationWeight -= victim.getValue().weight;
+    } else {
+      protectedSegment.remove(file);
+      protectedWeight -= victim.getValue().weight;
+    }
+  }
+
+  private void evicted(Map.Entry<String, Entry> entry) {
+    evictionListener.accept(entry.getKey(), entry.getValue().trackables);
+  }
+
+  @Override
+  void forEach(BiConsumer<String, Collection<Trackable>> action) {
+    window.forEach((file, entry) -> action.accept(file, entry.trackables));
+    probation.forEach((file, entry) -> action.accept(file, entry.trackables));
+    protectedSegment.forEach((file, entry) -> action.accept(file, entry.trackables));
+  }
+
+  @Override
+  void clear() {
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+    windowWeight = 0;
+    probationWeight = 0;
+    protectedWeight = 0;
+    sketch.clear();
+  }
+
+  @Override
+  int size() {
+    return window.size() + probation.size() + protectedSegment.size();
+  }
+
+  @Override
+  long weight() {
+    return windowWeight + probationWeight + protectedWeight;
+  }
+
+  /**
+   * Count-min sketch of 4-bit counters estimating the access frequency of files.
+   * Counters are halved periodically so that the frequencies reflect recent history.
+   */
+  static class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+      int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+      counters = new int[DEPTH][width];
+      mask = width - 1;
+      sampleSize = 10 * width;
+    }
+
+    void increment(String key) {
+      int hash = spread(key.hashCode());
+      boolean added = false;
+      for (int i = 0; i < DEPTH; i++) {
+        int index = index(hash, i);
+        if (counters[i][index] < MAX_COUNT) {
+          counters[i][index]++;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    int frequency(String key) {
+      int hash = spread(key.hashCode());
+      int frequency = MAX_COUNT;
+      for (int i = 0; i < DEPTH; i++) {
+        frequency = Math.min(frequency, counters[i][index(hash, i)]);
+      }
+      return frequency;
+    }
+
+    void clear() {
+      for (int[] row : counters) {
+        Arrays.fill(row, 0);
+      }
+      additions = 0;
+    }
+
+    private void reset() {
+      for (int[] row : counters) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] >>>= 1;
+        }
+      }
+      additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+      int h = hash * SEEDS[row];
+      return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+      int h = hash ^ (hash >>> 16);
+      return h * 0x45D9F3B;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Index of the trackables of a file, as returned by its last tracking, kept to track the next analysis of the file.
+ * <p>
+ * Between two analyses of a file, most issues don't change. A raw that is identical to a base on all the attributes
+ * compared by {@link Tracker} is matched through the index, in constant time. Only the remaining raws and bases go
+ * through the matching passes of the {@link Tracker}, so that re-tracking costs in proportion to the changed issues.
+ */
+class TrackedFileIndex {
+
+  private final Collection<Trackable> trackables;
+  private final Map<Fingerprint, ArrayDeque<Trackable>> byFingerprint;
+  private boolean consumed;
+
+  private TrackedFileIndex(Collection<Trackable> trackables) {
+    this.trackables = trackables;
+    this.byFingerprint = new HashMap<>(Math.max(16, trackables.size() * 2));
+    for (Trackable trackable : trackables) {
+      byFingerprint.computeIfAbsent(new Fingerprint(trackable), f -> new ArrayDeque<>(1)).add(trackable);
+    }
+  }
+
+  static TrackedFileIndex of(Collection<Trackable> trackables) {
+    return new TrackedFileIndex(trackables);
+  }
+
+  /**
+   * Whether this index was built from exactly this collection (and not merely an equal one).
+   */
+  boolean isIndexOf(Collection<Trackable> current) {
+    return !consumed && trackables == current;
+  }
+
+  /**
+   * Match the raws with the indexed trackables, then the remaining ones with the {@link Tracker}.
+   * The index can't be used again afterwards.
+   *
+   * @return the bases matched by raws, by raw (identity)
+   */
+  Map<Trackable, Trackable> match(Collection<Trackable> raws) {
+    if (consumed) {
+      throw new IllegalStateException("Index was already used");
+    }
+    consumed = true;
+
+    Map<Trackable, Trackable> matches = new IdentityHashMap<>();
+    List<Trackable> unmatchedRaws = new ArrayList<>();
+    for (Trackable raw : raws) {
+      ArrayDeque<Trackable> candidates = byFingerprint.get(new Fingerprint(raw));
+      Trackable base = candidates != null ? candidates.poll() : null;
+      if (base != null) {
+        matches.put(raw, base);
+      } else {
+        unmatchedRaws.add(raw);
+      }
+    }
+
+    if (!unmatchedRaws.isEmpty() && matches.size() < trackables.size()) {
+      Set<Trackable> matchedBases = Collections.newSetFromMap(new IdentityHashMap<>());
+      matchedBases.addAll(matches.values());
+      List<Trackable> unmatchedBases = new ArrayList<>(trackables.size() - matches.size());
+      for (Trackable base : trackables) {
+        if (!matchedBases.contains(base)) {
+          unmatchedBases.add(base);
+        }
+      }
+      Tracking<Trackable, Trackable> tracking = new Tracker<>().track(() -> unmatchedRaws, () -> unmatchedBases);
+      matches.putAll(tracking.getMatchedRaws());
+    }
+    return matches;
+  }
+
+  /**
+   * The attributes compared by the matching passes, except the server issue key: raws never have one.
+   */
+  private static class Fingerprint {
+    private final String ruleKey;
+    private final Integer line;
+    private final String message;
+    private final Integer lineHash;
+    private final Integer textRangeHash;
+    private final int hashCode;
+
+    private Fingerprint(Trackable trackable) {
+      this.ruleKey = trackable.getRuleKey();
+      this.line = trackable.getLine();
+      this.message = trackable.getMessage();
+      this.lineHash = trackable.getLineHash();
+      this.textRangeHash = trackable.getTextRangeHash();
+      this.hashCode = Objects.hash(ruleKey, line, message, lineHash, textRangeHash);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Fingerprint)) {
+        return false;
+      }
+      Fingerprint other = (Fingerprint) obj;
+      return hashCode == other.hashCode
+        && Objects.equals(ruleKey, other.ruleKey)
+        && Objects.equals(line, other.line)
+        && Objects.equals(message, other.message)
+        && Objects.equals(lineHash, other.lineHash)
+        && Objects.equals(textRangeHash, other.textRangeHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -20,341 +20,287 @@
 package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Function;
+import javax.annotation.Nullable;
 
 /**
  * Match and track a collection of issues.
+ * <p>
+ * The base trackables are indexed once for all the matching passes: every search key is packed into a long
+ * (rule id in the high bits, id of the other matched values in the low bits), and each index keeps the bases
+ * having the same key in their original order, skipping the ones already matched by a previous pass.
  *
  * @param <R> type of the "raw" trackables that are in the incoming collection
  * @param <B> type of the base trackables that are in the current collection
  */
 public class Tracker<R extends Trackable, B extends Trackable> {
 
+  private static final long NO_KEY = -1L;
+
   public Tracking<R, B> track(TrackableSupplier<R> rawTrackableSupplier, TrackableSupplier<B> baseTrackableSupplier) {
     Tracking<R, B> tracking = new Tracking<>(rawTrackableSupplier, baseTrackableSupplier);
-
-    // 1. match issues with same rule, same line and same text range hash, but not necessarily with same message
-    match(tracking, LineAndTextRangeHashKeyFactory.INSTANCE);
-
-    // 2. match issues with same rule, same message and same text range hash
-    match(tracking, TextRangeHashAndMessageKeyFactory.INSTANCE);
-
-    // 3. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
-
-    // 4. match issues with same rule and same text range hash but different line and different message.
-    // See SONAR-2812
-    match(tracking, TextRangeHashKeyFactory.INSTANCE);
-
-    // 5. match issues with same rule, same line and same line hash
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
-
-    // 6. match issues with same rule and same same line hash
-    match(tracking, LineHashKeyFactory.INSTANCE);
-
-    // 7. match issues with same server issue key
-    match(tracking, ServerIssueSearchKeyFactory.INSTANCE);
-
-    return tracking;
-  }
-
-  private void match(Tracking<R, B> tracking, SearchKeyFactory factory) {
     if (tracking.isComplete()) {
-      return;
+      return tracking;
     }
 
-    Map<SearchKey, List<B>> baseSearch = new HashMap<>();
-    for (B base : tracking.getUnmatchedBases()) {
-      SearchKey searchKey = factory.apply(base);
-      if (!baseSearch.containsKey(searchKey)) {
-        baseSearch.put(searchKey, new ArrayList<>());
-      }
-      baseSearch.get(searchKey).add(base);
+    List<R> raws = toList(tracking.getUnmatchedRaws());
+    List<B> bases = toList(tracking.getUnmatchedBases());
+    KeyEncoder encoder = new KeyEncoder(bases.size());
+    KeyIndex[] indexes = new KeyIndex[SearchKey.values().length];
+    for (SearchKey searchKey : SearchKey.values()) {
+      indexes[searchKey.ordinal()] = new KeyIndex(searchKey, encoder, bases);
     }
 
-    for (R raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.apply(raw);
-      Collection<B> bases = baseSearch.get(rawKey);
-      if (bases != null && !bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        B match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.get(rawKey).remove(match);
+    boolean[] matchedRaws = new boolean[raws.size()];
+    boolean[] matchedBases = new boolean[bases.size()];
+    for (SearchKey searchKey : SearchKey.values()) {
+      if (tracking.isComplete()) {
+        break;
       }
+      match(tracking, searchKey, encoder, indexes[searchKey.ordinal()], raws, bases, matchedRaws, matchedBases);
     }
-  }
-
-  private interface SearchKey {
-  }
-
-  @FunctionalInterface
-  private interface SearchKeyFactory extends Function<Trackable, SearchKey> {
-    @Override
-    SearchKey apply(Trackable trackable);
-  }
-
-  private static class LineAndTextRangeHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer textRangeHash;
-    private final Integer line;
 
-    LineAndTextRangeHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.textRangeHash = trackable.getTextRangeHash();
-    }
-
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      LineAndTextRangeHashKey that = (LineAndTextRangeHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && Objects.equals(textRangeHash, that.textRangeHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (textRangeHash != null ? textRangeHash.hashCode() : 0);
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndTextRangeHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineAndTextRangeHashKey(t);
-    }
+    return tracking;
   }
 
-  private static class LineAndLineHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer line;
-    private final Integer lineHash;
-
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = trackable.getLineHash();
-    }
-
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && Objects.equals(lineHash, that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (lineHash != null ? lineHash.hashCode() : 0);
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
+  private void match(Tracking<R, B> tracking, SearchKey searchKey, KeyEncoder encoder, KeyIndex index, List<R> raws, List<B> bases,
+    boolean[] matchedRaws, boolean[] matchedBases) {
+    for (int i = 0; i < matchedRaws.length; i++) {
+      if (matchedRaws[i]) {
+        continue;
+      }
+      R raw = raws.get(i);
+      long rawKey = searchKey.encode(encoder, raw, false);
+      if (rawKey == NO_KEY) {
+        continue;
+      }
+      // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
+      // Message could be checked to take the best one.
+      int match = index.firstUnmatched(rawKey, matchedBases);
+      if (match != KeyIndex.NONE) {
+        tracking.match(raw, bases.get(match));
+        matchedRaws[i] = true;
+        matchedBases[match] = true;
+      }
     }
   }
 
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineAndLineHashKey(t);
-    }
+  private static <T> List<T> toList(Iterable<T> iterable) {
+    List<T> list = new ArrayList<>();
+    iterable.forEach(list::add);
+    return list;
   }
 
-  private static class LineHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer lineHash;
-
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = trackable.getLineHash();
-    }
-
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(lineHash, that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (lineHash != null ? lineHash.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
+  /**
+   * The matching passes, in the order they are applied.
+   */
+  private enum SearchKey {
+    // 1. match issues with same rule, same line and same text range hash, but not necessarily with same message
+    LINE_AND_TEXT_RANGE_HASH {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        return encoder.pack(this, t.getRuleKey(), encoder.lines.id(t.getLine(), register), encoder.textRangeHashes.id(t.getTextRangeHash(), register), register);
+      }
+    },
 
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineHashKey(t);
-    }
-  }
+    // 2. match issues with same rule, same message and same text range hash
+    TEXT_RANGE_HASH_AND_MESSAGE {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        return encoder.pack(this, t.getRuleKey(), encoder.messages.id(t.getMessage(), register), encoder.textRangeHashes.id(t.getTextRangeHash(), register), register);
+      }
+    },
 
-  private static class TextRangeHashAndMessageKey implements SearchKey {
-    private final String ruleKey;
-    private final String message;
-    private final Integer textRangeHash;
+    // 3. match issues with same rule, same line and same message
+    LINE_AND_MESSAGE {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        return encoder.pack(this, t.getRuleKey(), encoder.lines.id(t.getLine(), register), encoder.messages.id(t.getMessage(), register), register);
+      }
+    },
 
-    TextRangeHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.textRangeHash = trackable.getTextRangeHash();
-    }
+    // 4. match issues with same rule and same text range hash but different line and different message.
+    // See SONAR-2812
+    TEXT_RANGE_HASH {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        return encoder.pack(t.getRuleKey(), encoder.textRangeHashes.id(t.getTextRangeHash(), register), register);
+      }
+    },
 
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      TextRangeHashAndMessageKey that = (TextRangeHashAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(textRangeHash, that.textRangeHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
+    // 5. match issues with same rule, same line and same line hash
+    LINE_AND_LINE_HASH {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        return encoder.pack(this, t.getRuleKey(), encoder.lines.id(t.getLine(), register), encoder.lineHashes.id(t.getLineHash(), register), register);
+      }
+    },
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (textRangeHash != null ? textRangeHash.hashCode() : 0);
-      return result;
-    }
-  }
+    // 6. match issues with same rule and same same line hash
+    LINE_HASH {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        return encoder.pack(t.getRuleKey(), encoder.lineHashes.id(t.getLineHash(), register), register);
+      }
+    },
 
-  private enum TextRangeHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
+    // 7. match issues with same server issue key
+    SERVER_ISSUE_KEY {
+      @Override
+      long encode(KeyEncoder encoder, Trackable t, boolean register) {
+        String serverIssueKey = t.getServerIssueKey();
+        if (serverIssueKey == null || serverIssueKey.isEmpty()) {
+          // issues without server issue key never match on this key
+          return NO_KEY;
+        }
+        int id = encoder.serverIssueKeys.id(serverIssueKey, register);
+        return id != Ids.UNKNOWN ? id : NO_KEY;
+      }
+    };
 
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new TextRangeHashAndMessageKey(t);
-    }
+    /**
+     * @param register true when indexing bases: unknown values are given a new id. When false, a value that was never
+     * registered can't match anything and {@link #NO_KEY} is returned.
+     */
+    abstract long encode(KeyEncoder encoder, Trackable trackable, boolean register);
   }
 
-  private static class LineAndMessageKey implements SearchKey {
-    private final String ruleKey;
-    private final String message;
-    private final Integer line;
-
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
-    }
-
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
+  /**
+   * Assigns dense int ids to the values compared by the search keys, so that keys can be packed into longs.
+   */
+  private static class KeyEncoder {
+    private final Ids<String> rules;
+    private final Ids<String> messages;
+    private final Ids<Integer> lines;
+    private final Ids<Integer> lineHashes;
+    private final Ids<Integer> textRangeHashes;
+    private final Ids<String> serverIssueKeys;
+    private final LongIntMap[] pairIds = new LongIntMap[SearchKey.values().length];
+
+    KeyEncoder(int expectedSize) {
+      rules = new Ids<>(expectedSize);
+      messages = new Ids<>(expectedSize);
+      lines = new Ids<>(expectedSize);
+      lineHashes = new Ids<>(expectedSize);
+      textRangeHashes = new Ids<>(expectedSize);
+      serverIssueKeys = new Ids<>(expectedSize);
+      for (int i = 0; i < pairIds.length; i++) {
+        pairIds[i] = new LongIntMap(expectedSize);
+      }
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
+    long pack(String ruleKey, int valueId, boolean register) {
+      int ruleId = rules.id(ruleKey, register);
+      if (ruleId == Ids.UNKNOWN || valueId == Ids.UNKNOWN) {
+        return NO_KEY;
+      }
+      return ((long) ruleId << 32) | valueId;
     }
-  }
 
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineAndMessageKey(t);
+    long pack(SearchKey searchKey, String ruleKey, int firstValueId, int secondValueId, boolean register) {
+      if (firstValueId == Ids.UNKNOWN || secondValueId == Ids.UNKNOWN) {
+        return NO_KEY;
+      }
+      LongIntMap pairs = pairIds[searchKey.ordinal()];
+      long pair = ((long) firstValueId << 32) | secondValueId;
+      int pairId = pairs.get(pair);
+      if (pairId == LongIntMap.NO_VALUE) {
+        if (!register) {
+          return NO_KEY;
+        }
+        pairId = pairs.size();
+        pairs.put(pair, pairId);
+      }
+      return pack(ruleKey, pairId, register);
     }
   }
 
-  private static class TextRangeHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer textRangeHash;
+  /**
+   * Dictionary of values, null being a valid value that is equal to itself.
+   */
+  private static class Ids<T> {
+    static final int UNKNOWN = -1;
+    private static final int NULL_ID = 0;
 
-    TextRangeHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.textRangeHash = trackable.getTextRangeHash();
-    }
-
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      TextRangeHashKey that = (TextRangeHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(textRangeHash, that.textRangeHash)
-        && ruleKey.equals(that.ruleKey);
-    }
+    private final Map<T, Integer> idByValue;
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (textRangeHash != null ? textRangeHash.hashCode() : 0);
-      return result;
+    Ids(int expectedSize) {
+      idByValue = new HashMap<>(Math.max(16, expectedSize));
     }
-  }
-
-  private enum TextRangeHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
 
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new TextRangeHashKey(t);
+    int id(@Nullable T value, boolean register) {
+      if (value == null) {
+        return NULL_ID;
+      }
+      Integer id = idByValue.get(value);
+      if (id != null) {
+        return id;
+      }
+      if (!register) {
+        return UNKNOWN;
+      }
+      int newId = idByValue.size() + 1;
+      idByValue.put(value, newId);
+      return newId;
     }
   }
 
-  private static class ServerIssueSearchKey implements SearchKey {
-    private final String serverIssueKey;
-
-    ServerIssueSearchKey(Trackable trackable) {
-      serverIssueKey = trackable.getServerIssueKey();
-    }
-
-    // note: the design of the enclosing caller ensures that 'o' is of the correct class and not null
-    @Override
-    public boolean equals(Object o) {
-      ServerIssueSearchKey that = (ServerIssueSearchKey) o;
-      return !isBlank(serverIssueKey) && !isBlank(that.serverIssueKey) && serverIssueKey.equals(that.serverIssueKey);
-    }
-
-    private static boolean isBlank(String s) {
-      return s == null || s.isEmpty();
+  /**
+   * Bases grouped by search key, as linked lists of base positions, in the order of the bases.
+   */
+  private static class KeyIndex {
+    static final int NONE = -1;
+
+    private final LongIntMap bucketByKey;
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] next;
+
+    KeyIndex(SearchKey searchKey, KeyEncoder encoder, List<? extends Trackable> bases) {
+      int size = bases.size();
+      bucketByKey = new LongIntMap(size);
+      heads = new int[size];
+      tails = new int[size];
+      next = new int[size];
+      Arrays.fill(next, NONE);
+      for (int i = 0; i < size; i++) {
+        long key = searchKey.encode(encoder, bases.get(i), true);
+        if (key != NO_KEY) {
+          add(key, i);
+        }
+      }
     }
 
-    @Override
-    public int hashCode() {
-      return serverIssueKey != null ? serverIssueKey.hashCode() : 0;
+    private void add(long key, int base) {
+      int bucket = bucketByKey.get(key);
+      if (bucket == LongIntMap.NO_VALUE) {
+        bucket = bucketByKey.size();
+        bucketByKey.put(key, bucket);
+        heads[bucket] = base;
+      } else {
+        next[tails[bucket]] = base;
+      }
+      tails[bucket] = base;
     }
-  }
 
-  private enum ServerIssueSearchKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable trackable) {
-      return new ServerIssueSearchKey(trackable);
+    /**
+     * Position of the first base having the given key that is not matched yet, or {@link #NONE}.
+     * Matched bases are unlinked from the head of the bucket as they are met, so each one is skipped once at most.
+     */
+    int firstUnmatched(long key, boolean[] matchedBases) {
+      int bucket = bucketByKey.get(key);
+      if (bucket == LongIntMap.NO_VALUE) {
+        return NONE;
+      }
+      int base = heads[bucket];
+      while (base != NONE && matchedBases[base]) {
+        base = next[base];
+      }
+      heads[bucket] = base;
+      return base;
     }
   }
 }
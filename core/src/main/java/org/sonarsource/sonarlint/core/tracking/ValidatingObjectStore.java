@@ -0,0 +1,56 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.Collection;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
+
+/**
+ * An ObjectStore that knows its keys, so that they can be checked for existence and validated.
+ *
+ * @param <K> type of the key to store by and used when reading back
+ * @param <V> type of the value to store
+ */
+interface ValidatingObjectStore<K, V> extends ObjectStore<K, V> {
+
+  boolean contains(K key);
+
+  /**
+   * Snapshot of the keys of the store.
+   */
+  Collection<K> keys();
+
+  /**
+   * Deletes the entry if its key is no longer valid. Failures to delete are logged.
+   *
+   * @return true if the key was invalid
+   */
+  boolean deleteIfInvalid(K key);
+
+  /**
+   * Forget all entries. Persisted files are expected to be deleted by the caller.
+   */
+  void clear();
+
+  /**
+   * Release resources and make sure that the store is fully persisted.
+   */
+  void close();
+}
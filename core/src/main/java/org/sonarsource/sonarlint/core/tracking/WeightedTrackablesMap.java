@@ -0,0 +1,82 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import javax.annotation.CheckForNull;
+
+/**
+ * Map of the trackables of files, bounded by their estimated weight. Entries are evicted according to a policy,
+ * and given to an eviction listener. The entry that was put last is never evicted.
+ * <p>
+ * Not thread-safe.
+ */
+abstract class WeightedTrackablesMap {
+
+  protected final IssueTrackerCacheSettings settings;
+  protected final BiConsumer<String, Collection<Trackable>> evictionListener;
+
+  protected WeightedTrackablesMap(IssueTrackerCacheSettings settings, BiConsumer<String, Collection<Trackable>> evictionListener) {
+    this.settings = settings;
+    this.evictionListener = evictionListener;
+  }
+
+  static WeightedTrackablesMap create(IssueTrackerCacheSettings settings, BiConsumer<String, Collection<Trackable>> evictionListener) {
+    switch (settings.getEvictionPolicy()) {
+      case W_TINY_LFU:
+        return new TinyLfuTrackablesMap(settings, evictionListener);
+      case LRU:
+      default:
+        return new LruTrackablesMap(settings, evictionListener);
+    }
+  }
+
+  /**
+   * Get the trackables of the file, and record the access for the eviction policy.
+   */
+  @CheckForNull
+  abstract Collection<Trackable> get(String file);
+
+  /**
+   * Whether the trackables of the file are in memory, without recording an access.
+   */
+  abstract boolean containsKey(String file);
+
+  abstract void put(String file, Collection<Trackable> trackables);
+
+  abstract void forEach(BiConsumer<String, Collection<Trackable>> action);
+
+  abstract void clear();
+
+  abstract int size();
+
+  abstract long weight();
+
+  protected static class Entry {
+    final Collection<Trackable> trackables;
+    final long weight;
+
+    Entry(Collection<Trackable> trackables, long weight) {
+      this.trackables = trackables;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+/**
+ * Feeds a {@link MessageDigest} with the UTF-8 bytes of a {@link CharSequence}, skipping whitespace characters,
+ * without intermediate strings or byte arrays.
+ * The result is the same as digesting {@code content.replaceAll("[\\s]", "").getBytes(UTF_8)}.
+ * <p>
+ * Instances are not thread-safe, each thread should use its own.
+ */
+class WhitespaceSkippingDigester {
+
+  private static final int BUFFER_SIZE = 1024;
+  // a code point takes at most 4 bytes in UTF-8
+  private static final int FLUSH_THRESHOLD = BUFFER_SIZE - 4;
+  // what String.getBytes(UTF_8) produces for an unpaired surrogate
+  private static final char REPLACEMENT = '?';
+  private static final char NO_SURROGATE = 0;
+
+  private final MessageDigest digest;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final byte[] result;
+  private int position;
+
+  WhitespaceSkippingDigester(MessageDigest digest) {
+    this.digest = digest;
+    this.result = new byte[digest.getDigestLength()];
+  }
+
+  /**
+   * Same whitespace characters as the {@code \s} regular expression class.
+   */
+  static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * @return the digest of the content. The returned array is reused by the next call.
+   */
+  byte[] digest(CharSequence content) {
+    return digest(content, 0, content.length());
+  }
+
+  /**
+   * @return the digest of the content between start (inclusive) and end (exclusive). The returned array is reused by the next call.
+   */
+  byte[] digest(CharSequence content, int start, int end) {
+    digest.reset();
+    position = 0;
+    char highSurrogate = NO_SURROGATE;
+    for (int i = start; i < end; i++) {
+      char c = content.charAt(i);
+      if (isWhitespace(c)) {
+        // removing whitespace may join the two halves of a surrogate pair
+        continue;
+      }
+      if (highSurrogate != NO_SURROGATE) {
+        if (Character.isLowSurrogate(c)) {
+          writeCodePoint(Character.toCodePoint(highSurrogate, c));
+          highSurrogate = NO_SURROGATE;
+          continue;
+        }
+        writeCodePoint(REPLACEMENT);
+        highSurrogate = NO_SURROGATE;
+      }
+      if (Character.isHighSurrogate(c)) {
+        highSurrogate = c;
+      } else if (Character.isLowSurrogate(c)) {
+        writeCodePoint(REPLACEMENT);
+      } else {
+        writeCodePoint(c);
+      }
+    }
+    if (highSurrogate != NO_SURROGATE) {
+      writeCodePoint(REPLACEMENT);
+    }
+    digest.update(buffer, 0, position);
+    try {
+      digest.digest(result, 0, result.length);
+    } catch (DigestException e) {
+      throw new IllegalStateException(e);
+    }
+    return result;
+  }
+
+  private void writeCodePoint(int codePoint) {
+    if (position > FLUSH_THRESHOLD) {
+      digest.update(buffer, 0, position);
+      position = 0;
+    }
+    if (codePoint < 0x80) {
+      buffer[position++] = (byte) codePoint;
+    } else if (codePoint < 0x800) {
+      buffer[position++] = (byte) (0xC0 | (codePoint >> 6));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      buffer[position++] = (byte) (0xE0 | (codePoint >> 12));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    } else {
+      buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+  }
+}
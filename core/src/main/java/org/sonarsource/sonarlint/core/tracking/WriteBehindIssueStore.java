@@ -0,0 +1,229 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.CheckForNull;
+
+/**
+ * Asynchronous write-behind layer in front of an {@link IssueStore}.
+ * <p>
+ * Writes are queued and performed by a background writer, so that callers don't wait for disk I/O.
+ * Successive writes for the same file that are still pending are coalesced: only the latest value is written.
+ * The queue is bounded: when it is full, callers wait for the writer to make room.
+ * Reads consult the pending writes before the store, so that they always see the latest value.
+ */
+class WriteBehindIssueStore {
+
+  private final IssueStore store;
+  private final Logger logger;
+  private final Executor executor;
+  private final int capacity;
+
+  private final Object lock = new Object();
+  // pending writes, in the order they were first queued
+  private final Map<String, Collection<Trackable>> pending = new LinkedHashMap<>();
+  private String inFlight;
+  private boolean writerScheduled;
+  private int failures;
+
+  WriteBehindIssueStore(IssueStore store, Logger logger, int capacity) {
+    this(store, logger, capacity, Executors.newSingleThreadExecutor(WriteBehindIssueStore::newWriterThread));
+  }
+
+  WriteBehindIssueStore(IssueStore store, Logger logger, int capacity, Executor executor) {
+    this.store = store;
+    this.logger = logger;
+    this.capacity = capacity;
+    this.executor = executor;
+  }
+
+  private static Thread newWriterThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "sonarlint-issue-store-writer");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Queue the trackables of a file to be persisted. Replaces any pending write for the same file.
+   */
+  void save(String file, Collection<Trackable> trackables) {
+    synchronized (lock) {
+      while (pending.size() >= capacity && !pending.containsKey(file)) {
+        awaitQuietly(0);
+      }
+      pending.put(file, trackables);
+      if (writerScheduled) {
+        return;
+      }
+      writerScheduled = true;
+    }
+    try {
+      executor.execute(this::writePending);
+    } catch (RejectedExecutionException e) {
+      // writer is shut down, write synchronously
+      writePending();
+    }
+  }
+
+  /**
+   * @return the trackables that are queued to be persisted for the file, or null if there are none
+   */
+  @CheckForNull
+  Collection<Trackable> getPending(String file) {
+    synchronized (lock) {
+      return pending.get(file);
+    }
+  }
+
+  boolean contains(String file) {
+    return getPending(file) != null || store.contains(file);
+  }
+
+  @CheckForNull
+  Collection<Trackable> read(String file) throws IOException {
+    Collection<Trackable> trackables = getPending(file);
+    if (trackables != null) {
+      return trackables;
+    }
+    return store.read(file);
+  }
+
+  /**
+   * Drop pending writes, wait for the write in progress and clear the store.
+   */
+  void clear() {
+    synchronized (lock) {
+      pending.clear();
+      while (inFlight != null) {
+        awaitQuietly(0);
+      }
+      store.clear();
+    }
+  }
+
+  /**
+   * Wait until all pending writes are done, or the timeout is reached.
+   *
+   * @return false if some writes are still pending after the timeout
+   */
+  boolean awaitPendingWrites(long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (lock) {
+      while (!pending.isEmpty() || inFlight != null) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        awaitQuietly(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Number of writes that failed since creation.
+   */
+  int failures() {
+    synchronized (lock) {
+      return failures;
+    }
+  }
+
+  /**
+   * Drain pending writes within the timeout and stop the background writer.
+   */
+  void shutdown(long timeout, TimeUnit unit) {
+    if (!awaitPendingWrites(timeout, unit)) {
+      String message;
+      synchronized (lock) {
+        message = String.format("Timeout while persisting issues, %d files were not persisted", pending.size());
+      }
+      logger.error(message, new TimeoutException(message));
+    }
+    if (executor instanceof ExecutorService) {
+      ((ExecutorService) executor).shutdownNow();
+    }
+    store.close();
+  }
+
+  private void writePending() {
+    while (true) {
+      String file;
+      Collection<Trackable> trackables;
+      synchronized (lock) {
+        Iterator<Map.Entry<String, Collection<Trackable>>> it = pending.entrySet().iterator();
+        if (!it.hasNext()) {
+          writerScheduled = false;
+          lock.notifyAll();
+          return;
+        }
+        Map.Entry<String, Collection<Trackable>> next = it.next();
+        file = next.getKey();
+        trackables = next.getValue();
+        inFlight = file;
+      }
+
+      boolean success = write(file, trackables);
+
+      synchronized (lock) {
+        inFlight = null;
+        if (!success) {
+          failures++;
+        }
+        // keep the entry if it was replaced during the write, it will be written again
+        if (pending.get(file) == trackables) {
+          pending.remove(file);
+        }
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private boolean write(String file, Collection<Trackable> trackables) {
+    try {
+      logger.debug("Persisting issues for " + file);
+      store.save(file, trackables);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      logger.error(String.format("Error persisting issues for %s", file), e);
+      return false;
+    }
+  }
+
+  private void awaitQuietly(long millis) {
+    try {
+      lock.wait(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for issues to be persisted", e);
+    }
+  }
+}
@@ -19,9 +19,9 @@
  */
 package org.sonarsource.sonarlint.core.util;
 
-import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.StreamSupport;
 
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
@@ -34,7 +34,8 @@ public class LoggedErrorHandler {
 
   public LoggedErrorHandler(Iterable<ClientInputFile> inputFiles) {
     this.inputFiles = inputFiles;
-    this.erroredFiles = new HashSet<>();
+    // errors can be logged by several threads of the analysis
+    this.erroredFiles = ConcurrentHashMap.newKeySet();
   }
 
   public void handleException(String className) {
@@ -0,0 +1,89 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.Rule;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.resources.Project;
+import org.sonar.api.scan.issue.filter.FilterableIssue;
+import org.sonar.api.scan.issue.filter.IssueFilter;
+import org.sonar.api.scan.issue.filter.IssueFilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueFiltersTest {
+
+  private final Project project = mock(Project.class);
+  private final InputComponent component = mock(InputComponent.class);
+  private final DefaultClientIssue rawIssue = new DefaultClientIssue("MAJOR", "BUG", mock(ActiveRule.class), mock(Rule.class), "msg", null, null,
+    Collections.emptyList());
+
+  @Test
+  public void should_accept_when_no_filters() {
+    assertThat(new IssueFilters(project).accept(component, rawIssue)).isTrue();
+  }
+
+  @Test
+  public void should_reuse_chain_across_issues() {
+    List<IssueFilterChain> chains = new ArrayList<>();
+    IssueFilter filter = (issue, chain) -> {
+      chains.add(chain);
+      return chain.accept(issue);
+    };
+    IssueFilters issueFilters = new IssueFilters(project, new IssueFilter[] {filter});
+
+    assertThat(issueFilters.accept(component, rawIssue)).isTrue();
+    assertThat(issueFilters.accept(component, rawIssue)).isTrue();
+
+    assertThat(chains).hasSize(2);
+    assertThat(chains.get(0)).isSameAs(chains.get(1));
+  }
+
+  @Test
+  public void should_not_run_deprecated_filters_when_issue_refused() {
+    List<Issue> seen = new ArrayList<>();
+    IssueFilter refusing = (issue, chain) -> false;
+    org.sonar.api.issue.batch.IssueFilter deprecated = (issue, chain) -> seen.add(issue);
+    IssueFilters issueFilters = new IssueFilters(project, new IssueFilter[] {refusing}, new org.sonar.api.issue.batch.IssueFilter[] {deprecated});
+
+    assertThat(issueFilters.accept(component, rawIssue)).isFalse();
+    assertThat(seen).isEmpty();
+  }
+
+  @Test
+  public void should_pass_component_to_filters() {
+    when(component.key()).thenReturn("foo:src/Foo.java");
+    List<String> keys = new ArrayList<>();
+    IssueFilter filter = (FilterableIssue issue, IssueFilterChain chain) -> keys.add(issue.componentKey());
+    org.sonar.api.issue.batch.IssueFilter deprecated = (issue, chain) -> keys.add(issue.componentKey());
+    IssueFilters issueFilters = new IssueFilters(project, new IssueFilter[] {filter}, new org.sonar.api.issue.batch.IssueFilter[] {deprecated});
+
+    assertThat(issueFilters.accept(component, rawIssue)).isTrue();
+    assertThat(keys).containsExactly("foo:src/Foo.java", "foo:src/Foo.java");
+  }
+}
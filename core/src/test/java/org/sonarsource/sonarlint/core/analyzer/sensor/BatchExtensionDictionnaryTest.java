@@ -23,6 +23,8 @@ import com.google.common.collect.Lists;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.junit.Test;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.BuildBreaker;
@@ -41,16 +43,25 @@ import org.sonarsource.sonarlint.core.container.global.ExtensionMatcher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class BatchExtensionDictionnaryTest {
 
   private BatchExtensionDictionnary newSelector(Object... extensions) {
+    return newSelector(new ExtensionMetadataCache(), extensions);
+  }
+
+  private BatchExtensionDictionnary newSelector(ExtensionMetadataCache metadataCache, Object... extensions) {
     ComponentContainer iocContainer = new ComponentContainer();
     for (Object extension : extensions) {
       iocContainer.addSingleton(extension);
     }
-    return new BatchExtensionDictionnary(iocContainer, mock(DefaultSensorContext.class), mock(SensorOptimizer.class));
+    return new BatchExtensionDictionnary(iocContainer, mock(DefaultSensorContext.class), mock(SensorOptimizer.class), metadataCache);
   }
 
   @Test
@@ -313,6 +324,61 @@ public class BatchExtensionDictionnaryTest {
     assertThat(extensions.get(2)).isEqualTo(checker);
   }
 
+  @Test
+  public void reuseSortOrderOfSameExtensionClasses() {
+    ExtensionMetadataCache metadataCache = spy(new ExtensionMetadataCache());
+
+    BatchExtension dependsUpon = new ClassDependsUpon();
+    BatchExtension dependedUpon = new ClassDependedUpon();
+    List<BatchExtension> extensions = Lists.newArrayList(newSelector(metadataCache, dependsUpon, dependedUpon).select(BatchExtension.class, null, true, null));
+    assertThat(extensions).containsExactly(dependedUpon, dependsUpon);
+
+    // new instances, as in the next analysis
+    dependsUpon = new ClassDependsUpon();
+    dependedUpon = new ClassDependedUpon();
+    extensions = Lists.newArrayList(newSelector(metadataCache, dependsUpon, dependedUpon).select(BatchExtension.class, null, true, null));
+    assertThat(extensions).containsExactly(dependedUpon, dependsUpon);
+
+    verify(metadataCache, times(1)).putSortOrder(anyList(), any(int[].class));
+  }
+
+  @Test
+  public void doNotReuseSortOrderOfExtensionsWithAnnotatedMethods() {
+    ExtensionMetadataCache metadataCache = new ExtensionMetadataCache();
+
+    BatchExtension a = new MethodDependentOf(null);
+    BatchExtension b = new MethodDependentOf(a);
+    List<BatchExtension> extensions = Lists.newArrayList(newSelector(metadataCache, a, b).select(BatchExtension.class, null, true, null));
+    assertThat(extensions).containsExactly(a, b);
+
+    // same classes, but dependencies are reversed
+    BatchExtension c = new MethodDependentOf(null);
+    BatchExtension d = new MethodDependentOf(c);
+    extensions = Lists.newArrayList(newSelector(metadataCache, d, c).select(BatchExtension.class, null, true, null));
+    assertThat(extensions).containsExactly(c, d);
+  }
+
+  @Test
+  public void computeUpstreamExtensionsFromDependenciesAndPhases() {
+    BatchExtension generator = new GeneratesSomething("foo");
+    BatchExtension consumer = new MethodDependentOf("foo");
+    BatchExtension transitiveConsumer = new MethodDependentOf(consumer);
+    BatchExtension independent = new MethodDependentOf(null);
+    BatchExtension pre = new PreSensor();
+    BatchExtension post = new PostSensor();
+
+    BatchExtensionDictionnary selector = newSelector();
+    Map<BatchExtension, Set<BatchExtension>> upstream = selector
+      .upstreamExtensions(Arrays.asList(generator, consumer, transitiveConsumer, independent, pre, post));
+
+    assertThat(upstream.get(pre)).isEmpty();
+    assertThat(upstream.get(generator)).containsOnly(pre);
+    assertThat(upstream.get(independent)).containsOnly(pre);
+    assertThat(upstream.get(consumer)).containsOnly(pre, generator);
+    assertThat(upstream.get(transitiveConsumer)).containsOnly(pre, generator, consumer);
+    assertThat(upstream.get(post)).containsOnly(pre, generator, consumer, transitiveConsumer, independent);
+  }
+
   class FakeSensor implements Sensor {
 
     public void analyse(Project project, SensorContext context) {
@@ -0,0 +1,145 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.batch.rule.internal.DefaultRule;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.IssueLocation;
+import org.sonar.api.resources.Project;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultSensorStorageTest {
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  private static final RuleKey ACTIVE = RuleKey.of("squid", "S1");
+  private static final RuleKey INACTIVE = RuleKey.of("squid", "S2");
+
+  private final ActiveRules activeRules = mock(ActiveRules.class);
+  private final Rules rules = mock(Rules.class);
+  private final IssueListener issueListener = mock(IssueListener.class);
+  private final IssueLocation location = mock(IssueLocation.class);
+  private DefaultSensorStorage storage;
+
+  @Before
+  public void setUp() {
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.ruleKey()).thenReturn(ACTIVE);
+    when(activeRule.severity()).thenReturn("MAJOR");
+    when(activeRules.findAll()).thenReturn(Collections.singletonList(activeRule));
+    DefaultRule rule = mockRule(ACTIVE, "Active rule");
+    when(rules.find(ACTIVE)).thenReturn(rule);
+    DefaultRule inactiveRule = mockRule(INACTIVE, "Inactive rule");
+    when(rules.find(INACTIVE)).thenReturn(inactiveRule);
+
+    when(location.inputComponent()).thenReturn(mock(InputComponent.class));
+
+    storage = new DefaultSensorStorage(activeRules, rules, new IssueFilters(mock(Project.class)), issueListener, new DefaultAnalysisResult());
+  }
+
+  private static DefaultRule mockRule(RuleKey key, String name) {
+    DefaultRule rule = mock(DefaultRule.class);
+    when(rule.key()).thenReturn(key);
+    when(rule.name()).thenReturn(name);
+    when(rule.type()).thenReturn("BUG");
+    return rule;
+  }
+
+  private Issue issue(RuleKey ruleKey) {
+    Issue issue = mock(Issue.class);
+    when(issue.ruleKey()).thenReturn(ruleKey);
+    when(issue.primaryLocation()).thenReturn(location);
+    return issue;
+  }
+
+  @Test
+  public void should_report_issue_of_active_rule() {
+    when(location.message()).thenReturn("msg");
+
+    storage.store(issue(ACTIVE));
+
+    verify(issueListener).handle(argThat(i -> "MAJOR".equals(i.getSeverity()) && "BUG".equals(i.getType()) && "msg".equals(i.getMessage())));
+  }
+
+  @Test
+  public void should_fallback_to_rule_name_when_no_message() {
+    storage.store(issue(ACTIVE));
+
+    verify(issueListener).handle(argThat(i -> "Active rule".equals(i.getMessage())));
+  }
+
+  @Test
+  public void should_ignore_issue_of_inactive_rule() {
+    storage.store(issue(INACTIVE));
+
+    verify(issueListener, never()).handle(any());
+  }
+
+  @Test
+  public void should_fail_on_unknown_rule() {
+    exception.expect(MessageException.class);
+    exception.expectMessage("The rule 'squid:S3' does not exist.");
+
+    storage.store(issue(RuleKey.of("squid", "S3")));
+  }
+
+  @Test
+  public void should_fail_when_no_rule_name_and_no_message() {
+    when(rules.find(ACTIVE).name()).thenReturn(null);
+    storage = new DefaultSensorStorage(activeRules, rules, new IssueFilters(mock(Project.class)), issueListener, new DefaultAnalysisResult());
+
+    exception.expect(MessageException.class);
+    exception.expectMessage("has no name and the related issue has no message");
+
+    storage.store(issue(ACTIVE));
+  }
+
+  @Test
+  public void should_resolve_rules_once() {
+    when(location.message()).thenReturn("msg");
+
+    storage.store(issue(ACTIVE));
+    storage.store(issue(ACTIVE));
+
+    verify(rules).find(ACTIVE);
+    verify(issueListener, times(2)).handle(any());
+  }
+}
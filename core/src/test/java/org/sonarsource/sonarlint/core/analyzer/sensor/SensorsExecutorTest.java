@@ -19,7 +19,15 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
@@ -30,8 +38,12 @@ import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.events.SensorsPhaseHandler;
 import org.sonar.api.batch.events.SensorsPhaseHandler.SensorsPhaseEvent;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +54,7 @@ public class SensorsExecutorTest {
   private BatchExtensionDictionnary dict;
   private Project project;
   private SensorsPhaseHandler handler;
+  private Settings settings;
 
   @Before
   public void setUp() {
@@ -50,7 +63,8 @@ public class SensorsExecutorTest {
     dict = mock(BatchExtensionDictionnary.class);
     project = mock(Project.class);
     SensorsPhaseHandler[] handlers = {handler};
-    executor = new SensorsExecutor(dict, project, handlers);
+    settings = new MapSettings();
+    executor = new SensorsExecutor(dict, project, handlers, settings);
 
     when(dict.select(Sensor.class, project, true, null)).thenReturn(Collections.singletonList(sensor));
   }
@@ -67,6 +81,120 @@ public class SensorsExecutorTest {
     inOrder.verify(handler).onSensorsPhase(ArgumentMatchers.argThat(new EventMatcher(false)));
   }
 
+  @Test
+  public void should_execute_independent_thread_safe_sensors_concurrently() {
+    CountDownLatch allStarted = new CountDownLatch(2);
+    Sensor first = new RendezvousSensor(allStarted);
+    Sensor second = new RendezvousSensor(allStarted);
+    enableParallelExecution(RendezvousSensor.class);
+    mockSensors(first, second);
+
+    executor.execute(mock(SensorContext.class));
+
+    assertThat(allStarted.getCount()).isZero();
+  }
+
+  @Test
+  public void should_execute_other_sensors_alone() {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    Sensor first = new RecordingSensor("first", events);
+    Sensor notThreadSafe = new NotThreadSafeSensor("notThreadSafe", events);
+    Sensor last = new RecordingSensor("last", events);
+    enableParallelExecution(RecordingSensor.class);
+    mockSensors(first, notThreadSafe, last);
+
+    executor.execute(mock(SensorContext.class));
+
+    assertThat(events).containsExactly("first", "notThreadSafe", "last");
+  }
+
+  @Test
+  public void should_not_execute_sensor_after_failure_of_upstream_sensor() {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    Sensor failing = new RecordingSensor("failing", events) {
+      @Override
+      public void analyse(Project module, SensorContext context) {
+        throw new IllegalStateException("failure");
+      }
+    };
+    Sensor downstream = new RecordingSensor("downstream", events);
+    enableParallelExecution(failing.getClass(), RecordingSensor.class);
+    when(dict.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(failing, downstream));
+    Map<Sensor, Set<Sensor>> upstream = new HashMap<>();
+    upstream.put(failing, Collections.emptySet());
+    upstream.put(downstream, Collections.singleton(failing));
+    when(dict.upstreamExtensions(ArgumentMatchers.<Sensor>anyCollection())).thenReturn(upstream);
+
+    assertThatThrownBy(() -> executor.execute(mock(SensorContext.class))).isInstanceOf(IllegalStateException.class).hasMessage("failure");
+    assertThat(events).isEmpty();
+  }
+
+  private void enableParallelExecution(Class<?>... threadSafeSensors) {
+    settings.setProperty(SensorsExecutor.PARALLELISM_PROPERTY, 2);
+    settings.setProperty(SensorsExecutor.THREAD_SAFE_SENSORS_PROPERTY,
+      Arrays.stream(threadSafeSensors).map(Class::getName).toArray(String[]::new));
+  }
+
+  private void mockSensors(Sensor... sensors) {
+    when(dict.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensors));
+    Map<Sensor, Set<Sensor>> upstream = new HashMap<>();
+    for (Sensor s : sensors) {
+      upstream.put(s, Collections.emptySet());
+    }
+    when(dict.upstreamExtensions(ArgumentMatchers.<Sensor>anyCollection())).thenReturn(upstream);
+  }
+
+  static class RendezvousSensor implements Sensor {
+    private final CountDownLatch allStarted;
+
+    RendezvousSensor(CountDownLatch allStarted) {
+      this.allStarted = allStarted;
+    }
+
+    @Override
+    public void analyse(Project module, SensorContext context) {
+      allStarted.countDown();
+      try {
+        if (!allStarted.await(10, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("Sensors were not executed concurrently");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+  }
+
+  static class RecordingSensor implements Sensor {
+    private final String name;
+    private final List<String> events;
+
+    RecordingSensor(String name, List<String> events) {
+      this.name = name;
+      this.events = events;
+    }
+
+    @Override
+    public void analyse(Project module, SensorContext context) {
+      events.add(name);
+    }
+
+    @Override
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+  }
+
+  static class NotThreadSafeSensor extends RecordingSensor {
+    NotThreadSafeSensor(String name, List<String> events) {
+      super(name, events);
+    }
+  }
+
   class EventMatcher implements ArgumentMatcher<SensorsPhaseEvent> {
     private boolean start;
 
@@ -0,0 +1,70 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputPath;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.api.source.Highlightable;
+import org.sonar.api.test.MutableTestPlan;
+import org.sonarsource.sonarlint.core.analyzer.perspectives.BatchPerspectives;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AnalysisContainerTemplateTest {
+
+  @Test
+  public void should_share_components_with_analysis_containers() {
+    AnalysisContainerTemplate template = new AnalysisContainerTemplate(new ComponentContainer());
+    template.startComponents();
+
+    ComponentContainer analysis1 = template.createChild();
+    ComponentContainer analysis2 = template.createChild();
+
+    assertThat(analysis1.getComponentByType(FileMetadata.class)).isNotNull().isSameAs(analysis2.getComponentByType(FileMetadata.class));
+    assertThat(analysis1.getComponentByType(PathResolver.class)).isNotNull().isSameAs(analysis2.getComponentByType(PathResolver.class));
+  }
+
+  @Test
+  public void should_provide_shared_perspective_builders_to_analysis_containers() {
+    AnalysisContainerTemplate template = new AnalysisContainerTemplate(new ComponentContainer());
+    template.startComponents();
+
+    ComponentContainer analysis = template.createChild();
+    analysis.add(BatchPerspectives.class);
+    analysis.startComponents();
+
+    BatchPerspectives perspectives = analysis.getComponentByType(BatchPerspectives.class);
+    assertThat(perspectives.as(MutableTestPlan.class, mock(InputPath.class))).isNull();
+    assertThat(perspectives.as(Highlightable.class, mock(InputPath.class))).isNotNull();
+  }
+
+  @Test
+  public void should_declare_classes_once() {
+    AnalysisContainerTemplate template = new AnalysisContainerTemplate(new ComponentContainer());
+
+    assertThat(template.declareOnce(FileMetadata.class)).isTrue();
+    assertThat(template.declareOnce(FileMetadata.class)).isFalse();
+    assertThat(template.declareOnce(PathResolver.class)).isTrue();
+  }
+}
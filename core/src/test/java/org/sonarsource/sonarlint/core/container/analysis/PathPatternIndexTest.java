@@ -0,0 +1,92 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternIndexTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path baseDir;
+
+  @Before
+  public void prepare() throws IOException {
+    baseDir = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void match_like_patterns() {
+    PathPattern[] patterns = PathPattern.create(new String[] {
+      "file:**/*.java",
+      "**/generated/**",
+      "file:**/src/Foo?.js",
+      "file:" + baseDir.toString().replace('\\', '/') + "/lib/**",
+      "**/foo",
+      "file:**\\bar\\*.txt",
+      "src/Foo.java",
+      "file:**/*",
+      "**/*Test.*"});
+    PathPatternIndex<PathPattern> index = PathPatternIndex.of(patterns);
+
+    for (String path : Arrays.asList("src/Foo.java", "generated/x.js", "a/generated/b/c.py", "src/Foo1.js", "src/Foo12.js", "lib/a/b.c",
+      "foo", "x/foo", "x/foo/y", "bar/y.txt", "bar/z/y.txt", "src/FooTest.py", "README")) {
+      InputFile file = newInputFile(path);
+      List<PathPattern> expected = Arrays.stream(patterns).filter(p -> p.match(file)).collect(Collectors.toList());
+
+      assertThat(index.matching(file)).as(path).containsExactlyElementsOf(expected);
+      assertThat(index.matchesAny(file)).as(path).isEqualTo(!expected.isEmpty());
+    }
+  }
+
+  @Test
+  public void match_nothing_without_patterns() {
+    PathPatternIndex<PathPattern> index = PathPatternIndex.of(new PathPattern[0]);
+
+    assertThat(index.isEmpty()).isTrue();
+    assertThat(index.matchesAny(newInputFile("src/Foo.java"))).isFalse();
+    assertThat(index.matching(newInputFile("src/Foo.java"))).isEmpty();
+  }
+
+  @Test
+  public void index_by_suffix() {
+    PathPatternIndex<PathPattern> index = PathPatternIndex.of(PathPattern.create(new String[] {"file:**/*.java", "file:**/*.js"}));
+
+    assertThat(index.matching(newInputFile("src/Foo.js"))).extracting(PathPattern::toString).containsExactly("file:**/*.js");
+    assertThat(index.matchesAny(newInputFile("src/Foo.py"))).isFalse();
+  }
+
+  private InputFile newInputFile(String path) {
+    return new TestInputFileBuilder("foo", path).setModuleBaseDir(baseDir).build();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileIndexerTest {
+  private static final int FILE_COUNT = 10 * FileIndexer.MIN_FILES_PER_THREAD;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private ExclusionFilters exclusionFilters = mock(ExclusionFilters.class);
+  private InputFileBuilder inputFileBuilder = new InputFileBuilder(mock(LanguageDetection.class), new FileMetadata(), new FileMetadataCache(false));
+  private DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+  private Settings settings = new MapSettings();
+  private List<ClientInputFile> files = new ArrayList<>();
+
+  @Before
+  public void prepare() throws IOException {
+    when(exclusionFilters.accept(any(InputFile.class), any(InputFile.Type.class)))
+      .thenAnswer(invocation -> !invocation.<InputFile>getArgument(0).absolutePath().endsWith("0.txt"));
+    for (int i = 0; i < FILE_COUNT; i++) {
+      Path path = temp.getRoot().toPath().resolve("file" + i + ".txt");
+      Files.write(path, "foo\nbar".getBytes(StandardCharsets.UTF_8));
+      files.add(new TestClientInputFile(path, false, StandardCharsets.UTF_8));
+    }
+    // not sorted by name
+    Collections.shuffle(files);
+  }
+
+  @Test
+  public void index_files_in_parallel_in_order() {
+    settings.setProperty(FileIndexer.PARALLELISM_PROPERTY, 4);
+
+    InputPathCache cache = index(files);
+
+    assertThat(indexedPaths(cache)).containsExactlyElementsOf(acceptedPaths());
+    assertThat(analysisResult.fileCount()).isEqualTo(FILE_COUNT - FILE_COUNT / 10);
+    assertThat(cache.inputFiles()).allMatch(f -> f.lines() == 2);
+  }
+
+  @Test
+  public void index_files_sequentially() {
+    settings.setProperty(FileIndexer.PARALLELISM_PROPERTY, 1);
+
+    InputPathCache cache = index(files);
+
+    assertThat(indexedPaths(cache)).containsExactlyElementsOf(acceptedPaths());
+  }
+
+  @Test
+  public void fail_to_index_file_twice_in_parallel() {
+    settings.setProperty(FileIndexer.PARALLELISM_PROPERTY, 4);
+    ClientInputFile file = files.stream().filter(f -> f.getPath().endsWith("1.txt")).findFirst().get();
+    files.add(file);
+
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("can't be indexed twice");
+    index(files);
+  }
+
+  private InputPathCache index(List<ClientInputFile> inputFiles) {
+    StandaloneAnalysisConfiguration config = new StandaloneAnalysisConfiguration(temp.getRoot().toPath(), temp.getRoot().toPath(), inputFiles,
+      Collections.emptyMap());
+    FileIndexer indexer = new FileIndexer(inputFileBuilder, exclusionFilters, config, analysisResult, settings);
+    InputPathCache cache = new InputPathCache();
+    new SonarLintFileSystem(config, cache, indexer).index();
+    return cache;
+  }
+
+  private static List<String> indexedPaths(InputPathCache cache) {
+    List<String> paths = new ArrayList<>();
+    cache.inputFiles().forEach(f -> paths.add(f.path().toString()));
+    return paths;
+  }
+
+  private List<String> acceptedPaths() {
+    List<String> paths = new ArrayList<>();
+    files.stream().filter(f -> !f.getPath().endsWith("0.txt")).forEach(f -> paths.add(f.getPath()));
+    return paths;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.FileMetadataCacheStats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileMetadataCacheTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private FileMetadataCache cache = new FileMetadataCache(true);
+  private AtomicInteger reads = new AtomicInteger();
+
+  @Test
+  public void reuse_metadata_of_unchanged_file() throws IOException {
+    ClientInputFile file = newFile("foo\nbar");
+
+    FileMetadata.Metadata metadata = cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file));
+    assertThat(cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file))).isSameAs(metadata);
+
+    assertThat(metadata.lines).isEqualTo(2);
+    assertThat(reads.get()).isEqualTo(1);
+    assertStats(1, 1, 1);
+  }
+
+  @Test
+  public void recompute_metadata_of_modified_file() throws IOException {
+    ClientInputFile file = newFile("foo\nbar");
+    File ioFile = new File(file.getPath());
+    cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file));
+
+    Files.write(ioFile.toPath(), "foo\nbar\nbaz".getBytes(StandardCharsets.UTF_8));
+    ioFile.setLastModified(ioFile.lastModified() + 10_000);
+    FileMetadata.Metadata metadata = cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file));
+
+    assertThat(metadata.lines).isEqualTo(3);
+    assertThat(reads.get()).isEqualTo(2);
+    assertStats(0, 2, 1);
+  }
+
+  @Test
+  public void recompute_metadata_with_other_charset() throws IOException {
+    ClientInputFile file = newFile("foo\nbar");
+
+    cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file));
+    cache.getOrCompute(file, StandardCharsets.ISO_8859_1, loader(file));
+
+    assertThat(reads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void use_content_version_provided_by_client() throws IOException {
+    ClientInputFile file = newFile("foo\nbar");
+    ClientInputFile versioned = mock(ClientInputFile.class);
+    when(versioned.getPath()).thenReturn(file.getPath());
+    when(versioned.contentVersion()).thenReturn("1");
+
+    cache.getOrCompute(versioned, StandardCharsets.UTF_8, loader(file));
+    cache.getOrCompute(versioned, StandardCharsets.UTF_8, loader(file));
+    assertThat(reads.get()).isEqualTo(1);
+
+    when(versioned.contentVersion()).thenReturn("2");
+    cache.getOrCompute(versioned, StandardCharsets.UTF_8, loader(file));
+    assertThat(reads.get()).isEqualTo(2);
+    assertStats(1, 2, 1);
+  }
+
+  @Test
+  public void dont_cache_unversioned_files_by_default() throws IOException {
+    cache = new FileMetadataCache(false);
+    ClientInputFile file = newFile("foo\nbar");
+
+    cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file));
+    cache.getOrCompute(file, StandardCharsets.UTF_8, loader(file));
+
+    assertThat(reads.get()).isEqualTo(2);
+    assertStats(0, 2, 0);
+  }
+
+  @Test
+  public void dont_cache_files_not_on_disk() throws IOException {
+    ClientInputFile file = newFile("foo\nbar");
+    ClientInputFile missing = new TestClientInputFile(temp.getRoot().toPath().resolve("missing"), false, StandardCharsets.UTF_8);
+
+    cache.getOrCompute(missing, StandardCharsets.UTF_8, loader(file));
+    cache.getOrCompute(missing, StandardCharsets.UTF_8, loader(file));
+
+    assertThat(reads.get()).isEqualTo(2);
+    assertStats(0, 2, 0);
+  }
+
+  @Test
+  public void invalidate() throws IOException {
+    ClientInputFile file1 = newFile("foo");
+    ClientInputFile file2 = newFile("bar");
+    cache.getOrCompute(file1, StandardCharsets.UTF_8, loader(file1));
+    cache.getOrCompute(file2, StandardCharsets.UTF_8, loader(file2));
+
+    cache.invalidate(Collections.singletonList(file1.getPath()));
+    assertThat(cache.getStats().getSize()).isEqualTo(1);
+    cache.getOrCompute(file1, StandardCharsets.UTF_8, loader(file1));
+    cache.getOrCompute(file2, StandardCharsets.UTF_8, loader(file2));
+    assertThat(reads.get()).isEqualTo(3);
+
+    cache.invalidateAll();
+    assertThat(cache.getStats().getSize()).isEqualTo(0);
+  }
+
+  private ClientInputFile newFile(String content) throws IOException {
+    Path path = temp.newFile().toPath();
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return new TestClientInputFile(path, false, StandardCharsets.UTF_8);
+  }
+
+  private Supplier<FileMetadata.Metadata> loader(ClientInputFile file) {
+    return () -> {
+      reads.incrementAndGet();
+      return new FileMetadata().readMetadata(new File(file.getPath()), StandardCharsets.UTF_8);
+    };
+  }
+
+  private void assertStats(long hits, long misses, int size) {
+    FileMetadataCacheStats stats = cache.getStats();
+    assertThat(stats.getHitCount()).isEqualTo(hits);
+    assertThat(stats.getMissCount()).isEqualTo(misses);
+    assertThat(stats.getSize()).isEqualTo(size);
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -218,4 +219,75 @@ public class FileMetadataTest {
       "glyphicons-halflings-regular.woff' at line 1 for encoding UTF-8. Please fix file content or configure the encoding to be used using property 'sonar.sourceEncoding'.");
   }
 
+  @Test
+  public void supplementary_character_utf_8() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "a\uD83D\uDE00b\nc", StandardCharsets.UTF_8, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.lines).isEqualTo(2);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 5);
+    assertThat(metadata.lastValidOffset).isEqualTo(6);
+  }
+
+  @Test
+  public void non_ascii_iso_8859_1() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "f\u00F6o\rb\u00E0r\r\n", StandardCharsets.ISO_8859_1, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.ISO_8859_1);
+    assertThat(metadata.lines).isEqualTo(3);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 4, 9);
+    assertThat(metadata.lastValidOffset).isEqualTo(9);
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+  }
+
+  @Test
+  public void non_ascii_character_in_us_ascii() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "foo\nb\u00E0r", StandardCharsets.ISO_8859_1, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.US_ASCII);
+    assertThat(metadata.lines).isEqualTo(2);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 4);
+    assertThat(metadata.lastValidOffset).isEqualTo(7);
+    assertThat(logTester.logs(LoggerLevel.WARN).get(0)).contains("at line 2 for encoding US-ASCII");
+  }
+
+  @Test
+  public void replacement_character_is_reported() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "foo\nbar\r\nb\uFFFDz", StandardCharsets.UTF_8, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.lines).isEqualTo(3);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 4, 9);
+    assertThat(logTester.logs(LoggerLevel.WARN).get(0)).contains("at line 3 for encoding UTF-8");
+  }
+
+  @Test
+  public void large_file() throws Exception {
+    File tempFile = temp.newFile();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      content.append("l\u00EFne\r\n");
+    }
+    FileUtils.write(tempFile, content, StandardCharsets.UTF_8, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.lines).isEqualTo(100_001);
+    assertThat(metadata.originalLineOffsets[100_000]).isEqualTo(600_000);
+    assertThat(metadata.lastValidOffset).isEqualTo(600_000);
+  }
+
+  @Test
+  public void stream_keeps_bom() throws Exception {
+    byte[] content = "\uFEFFfoo\nbar".getBytes(StandardCharsets.UTF_8);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(new ByteArrayInputStream(content), StandardCharsets.UTF_8, "foo.txt");
+    assertThat(metadata.lines).isEqualTo(2);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 5);
+    assertThat(metadata.lastValidOffset).isEqualTo(8);
+  }
+
 }
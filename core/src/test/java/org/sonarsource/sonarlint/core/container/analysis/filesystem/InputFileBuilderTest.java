@@ -57,7 +57,7 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new TestClientInputFile(path, true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new FileMetadataCache(false));
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.type()).isEqualTo(InputFile.Type.TEST);
@@ -76,7 +76,7 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new TestClientInputFile(path, true, StandardCharsets.ISO_8859_1, "cpp");
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new FileMetadataCache(false));
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.language()).isEqualTo("cpp");
@@ -88,7 +88,7 @@ public class InputFileBuilderTest {
     when(langDetection.language(any(InputFile.class))).thenReturn("java");
     ClientInputFile file = new TestClientInputFile(Paths.get("INVALID"), true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new FileMetadataCache(false));
 
     exception.expect(IllegalStateException.class);
     exception.expectMessage("Failed to open a stream on file");
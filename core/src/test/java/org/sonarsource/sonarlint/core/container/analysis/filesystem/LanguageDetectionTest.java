@@ -98,6 +98,30 @@ public class LanguageDetectionTest {
     }
   }
 
+  @Test
+  public void search_by_suffix_that_is_not_a_plain_extension() throws Exception {
+    LanguagesRepository languages = new DefaultLanguagesRepository(new Languages(new MockLanguage("blade", "blade.php"), new MockLanguage("js", "js")));
+    LanguageDetection detection = new LanguageDetection(languages);
+
+    assertThat(detection.language(newInputFile("src/Foo.blade.php"))).isEqualTo("blade");
+    assertThat(detection.language(newInputFile("src/Foo.blade.PHP"))).isEqualTo("blade");
+    assertThat(detection.language(newInputFile("src/Foo.php"))).isNull();
+    assertThat(detection.language(newInputFile("src/Foo.js"))).isEqualTo("js");
+  }
+
+  @Test
+  public void fail_if_conflicting_plain_extension_and_pattern() throws Exception {
+    LanguagesRepository languages = new DefaultLanguagesRepository(new Languages(new MockLanguage("php", "php"), new MockLanguage("blade", "blade.php")));
+    LanguageDetection detection = new LanguageDetection(languages);
+
+    assertThat(detection.language(newInputFile("Foo.php"))).isEqualTo("php");
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("Language of file 'Foo.blade.php' can not be decided as the file matches patterns of both ");
+    thrown.expectMessage("blade: file:**/*.blade.php");
+    thrown.expectMessage("php: file:**/*.php");
+    detection.language(newInputFile("Foo.blade.php"));
+  }
+
   private InputFile newInputFile(String path) throws IOException {
     File basedir = temp.newFolder();
     return new TestInputFileBuilder("foo", path).setModuleBaseDir(basedir.toPath()).build();
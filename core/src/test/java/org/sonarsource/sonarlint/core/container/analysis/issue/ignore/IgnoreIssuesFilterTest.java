@@ -0,0 +1,94 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.scan.issue.filter.IssueFilterChain;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultFilterableIssue;
+import org.sonarsource.sonarlint.core.container.analysis.PathPatternIndex;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueExclusionPatternInitializer;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssuePattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IgnoreIssuesFilterTest {
+
+  private IssueExclusionPatternInitializer patternInitializer = mock(IssueExclusionPatternInitializer.class);
+  private IssueFilterChain chain = mock(IssueFilterChain.class);
+  private PathPatternIndex<IssuePattern> patternIndex;
+  private IgnoreIssuesFilter filter;
+
+  private InputFile javaFile = new TestInputFileBuilder("foo", "src/Foo.java").setModuleBaseDir(Paths.get("").toAbsolutePath()).build();
+  private InputFile jsFile = new TestInputFileBuilder("foo", "src/Foo.js").setModuleBaseDir(Paths.get("").toAbsolutePath()).build();
+
+  @Before
+  public void prepare() {
+    patternIndex = spy(new PathPatternIndex<>(Arrays.asList(
+      new IssuePattern("**/*.java", "squid:S1"),
+      new IssuePattern("**/*.js", "javascript:*"),
+      new IssuePattern("src/**", "common-*:Dup?")), IssuePattern::getPathPattern));
+    when(patternInitializer.getMulticriteriaPatternIndex()).thenReturn(patternIndex);
+    when(chain.accept(any())).thenReturn(true);
+    filter = new IgnoreIssuesFilter(patternInitializer);
+  }
+
+  @Test
+  public void ignore_issue_matching_rule_key_and_path() {
+    assertThat(filter.accept(issue(javaFile, "squid:S1"), chain)).isFalse();
+    assertThat(filter.accept(issue(jsFile, "javascript:S100"), chain)).isFalse();
+    assertThat(filter.accept(issue(javaFile, "common-java:DupA"), chain)).isFalse();
+  }
+
+  @Test
+  public void accept_issue_not_matching_rule_key_or_path() {
+    assertThat(filter.accept(issue(jsFile, "squid:S1"), chain)).isTrue();
+    assertThat(filter.accept(issue(javaFile, "squid:S10"), chain)).isTrue();
+    assertThat(filter.accept(issue(javaFile, "javascript:S100"), chain)).isTrue();
+    assertThat(filter.accept(issue(javaFile, "common-java:DupAB"), chain)).isTrue();
+  }
+
+  @Test
+  public void match_path_patterns_once_per_file() {
+    filter.accept(issue(javaFile, "squid:S1"), chain);
+    filter.accept(issue(javaFile, "squid:S2"), chain);
+    filter.accept(issue(javaFile, "squid:S3"), chain);
+
+    verify(patternIndex, times(1)).matching(javaFile);
+  }
+
+  private static DefaultFilterableIssue issue(InputFile file, String ruleKey) {
+    DefaultFilterableIssue issue = mock(DefaultFilterableIssue.class);
+    when(issue.getInputComponent()).thenReturn(file);
+    when(issue.ruleKey()).thenReturn(RuleKey.parse(ruleKey));
+    return issue;
+  }
+}
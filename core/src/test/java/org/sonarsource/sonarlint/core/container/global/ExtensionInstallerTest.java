@@ -0,0 +1,117 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.global;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.Plugin;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.ScannerSide;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.plugin.DefaultPluginRepository;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExtensionInstallerTest {
+
+  private final Plugin plugin = mock(Plugin.class);
+  private ExtensionInstaller underTest;
+
+  @Before
+  public void setUp() {
+    DefaultPluginRepository pluginRepository = mock(DefaultPluginRepository.class);
+    when(pluginRepository.getPluginInfos()).thenReturn(Collections.singletonList(new PluginInfo("foo")));
+    when(pluginRepository.getPluginInstance("foo")).thenReturn(plugin);
+    doAnswer(invocation -> {
+      Plugin.Context context = invocation.getArgument(0);
+      context.addExtensions(FakeScannerComponent.class, FakeCoverageComponent.class);
+      return null;
+    }).when(plugin).define(any(Plugin.Context.class));
+
+    underTest = new ExtensionInstaller(mock(SonarRuntime.class), pluginRepository);
+  }
+
+  @Test
+  public void should_install_filtered_extensions() {
+    ComponentContainer container = new ComponentContainer();
+    underTest.install(container);
+
+    assertThat(container.getComponentByType(FakeScannerComponent.class)).isNotNull();
+    assertThat(container.getComponentByType(FakeCoverageComponent.class)).isNull();
+  }
+
+  @Test
+  public void should_define_plugins_once() {
+    ComponentContainer container1 = new ComponentContainer();
+    ComponentContainer container2 = new ComponentContainer();
+    underTest.install(container1);
+    underTest.install(container2);
+
+    verify(plugin, times(1)).define(any(Plugin.Context.class));
+    assertThat(container1.getComponentByType(FakeScannerComponent.class)).isNotNull();
+    assertThat(container2.getComponentByType(FakeScannerComponent.class)).isNotNull();
+  }
+
+  @Test
+  public void should_define_plugins_again_when_they_provide_instances_with_lifecycle() {
+    doAnswer(invocation -> {
+      Plugin.Context context = invocation.getArgument(0);
+      context.addExtensions(FakeScannerComponent.class, new FakeStartableComponent());
+      return null;
+    }).when(plugin).define(any(Plugin.Context.class));
+    ComponentContainer container1 = new ComponentContainer();
+    ComponentContainer container2 = new ComponentContainer();
+    underTest.install(container1);
+    underTest.install(container2);
+
+    verify(plugin, times(2)).define(any(Plugin.Context.class));
+    assertThat(container1.getComponentByType(FakeStartableComponent.class)).isNotSameAs(container2.getComponentByType(FakeStartableComponent.class));
+  }
+
+  @Test
+  public void should_detect_lifecycle_methods() {
+    assertThat(ExtensionInstaller.hasLifecycle(FakeStartableComponent.class)).isFalse();
+    assertThat(ExtensionInstaller.hasLifecycle(new FakeStartableComponent())).isTrue();
+    assertThat(ExtensionInstaller.hasLifecycle(new FakeScannerComponent())).isFalse();
+  }
+
+  @ScannerSide
+  public static class FakeScannerComponent {
+  }
+
+  @ScannerSide
+  public static class FakeCoverageComponent {
+  }
+
+  @ScannerSide
+  public static class FakeStartableComponent {
+    public void start() {
+      // nothing to do
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisCostHistoryTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path workDir;
+  private AnalysisCostHistory history;
+
+  @Before
+  public void setUp() throws IOException {
+    workDir = temp.newFolder().toPath();
+    history = new AnalysisCostHistory(workDir);
+  }
+
+  private ClientInputFile file(String name, int size) throws IOException {
+    Path path = temp.getRoot().toPath().resolve(name);
+    Files.write(path, new byte[size]);
+    ClientInputFile file = mock(ClientInputFile.class);
+    when(file.getPath()).thenReturn(path.toString());
+    return file;
+  }
+
+  @Test
+  public void should_estimate_by_size_without_history() throws IOException {
+    ClientInputFile file = file("A.java", 10);
+
+    assertThat(history.estimate(file)).isEqualTo((long) (10 * AnalysisCostHistory.DEFAULT_NANOS_PER_BYTE));
+  }
+
+  @Test
+  public void should_attribute_duration_by_size() throws IOException {
+    ClientInputFile a = file("A.java", 10);
+    ClientInputFile b = file("B.java", 30);
+
+    history.record(Arrays.asList(a, b), 4_000);
+
+    assertThat(history.estimate(a)).isEqualTo(1_000);
+    assertThat(history.estimate(b)).isEqualTo(3_000);
+  }
+
+  @Test
+  public void should_smooth_measures() throws IOException {
+    ClientInputFile a = file("A.java", 10);
+
+    history.record(Collections.singletonList(a), 1_000);
+    history.record(Collections.singletonList(a), 3_000);
+
+    assertThat(history.estimate(a)).isEqualTo(2_000);
+  }
+
+  @Test
+  public void should_estimate_unknown_files_with_average_rate() throws IOException {
+    ClientInputFile a = file("A.java", 10);
+    ClientInputFile b = file("B.java", 10);
+    ClientInputFile c = file("C.java", 10);
+
+    history.record(Collections.singletonList(a), 1_000);
+    history.record(Collections.singletonList(b), 3_000);
+
+    assertThat(history.estimate(c)).isEqualTo(2_000);
+  }
+
+  @Test
+  public void should_reload_saved_costs() throws IOException {
+    ClientInputFile a = file("A.java", 10);
+    history.record(Collections.singletonList(a), 5_000);
+    history.save();
+
+    assertThat(workDir.resolve(AnalysisCostHistory.FILE_NAME)).exists();
+    assertThat(new AnalysisCostHistory(workDir).estimate(a)).isEqualTo(5_000);
+  }
+
+  @Test
+  public void should_ignore_corrupted_store() throws IOException {
+    Files.write(workDir.resolve(AnalysisCostHistory.FILE_NAME), "foo\tbar".getBytes());
+    ClientInputFile a = file("A.java", 10);
+
+    assertThat(history.estimate(a)).isEqualTo((long) (10 * AnalysisCostHistory.DEFAULT_NANOS_PER_BYTE));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisPartitionerTest {
+
+  private final Map<ClientInputFile, Long> costs = new HashMap<>();
+
+  private ClientInputFile file(String path, long cost) {
+    ClientInputFile file = mock(ClientInputFile.class);
+    when(file.getPath()).thenReturn(path);
+    when(file.toString()).thenReturn(path);
+    costs.put(file, cost);
+    return file;
+  }
+
+  private List<ClientInputFile> files(String extension, int count, long cost) {
+    List<ClientInputFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(file("/src/File" + i + "." + extension, cost));
+    }
+    return files;
+  }
+
+  private AnalysisPartitioner partitioner(int partitions, String... wholeProjectLanguages) {
+    return new AnalysisPartitioner(partitions, asList(wholeProjectLanguages), costs::get);
+  }
+
+  @Test
+  public void should_not_partition_by_default() {
+    List<ClientInputFile> files = files("js", 1000, 1);
+    AnalysisPartitioner partitioner = AnalysisPartitioner.fromProperties(Collections.emptyMap());
+
+    assertThat(partitioner.partition(files)).containsExactly(files);
+  }
+
+  @Test
+  public void should_not_partition_few_files() {
+    List<ClientInputFile> files = files("js", AnalysisPartitioner.MIN_FILES_PER_PARTITION * 2 - 1, 1);
+
+    assertThat(partitioner(4).partition(files)).containsExactly(files);
+  }
+
+  @Test
+  public void should_balance_costs_and_keep_order() {
+    List<ClientInputFile> files = files("js", AnalysisPartitioner.MIN_FILES_PER_PARTITION * 4, 10);
+    ClientInputFile big = file("/src/Big.js", 100_000);
+    files.add(0, big);
+
+    List<List<ClientInputFile>> partitions = partitioner(2).partition(files);
+
+    assertThat(partitions).hasSize(2);
+    assertThat(partitions.get(0)).containsExactly(big);
+    assertThat(partitions.get(1)).containsExactlyElementsOf(files.subList(1, files.size()));
+  }
+
+  @Test
+  public void should_keep_whole_project_languages_together() {
+    List<ClientInputFile> files = new ArrayList<>();
+    files.addAll(files("java", 200, 10));
+    files.addAll(files("js", 200, 10));
+
+    List<List<ClientInputFile>> partitions = partitioner(4, "java").partition(files);
+
+    assertThat(partitions).hasSize(4);
+    List<ClientInputFile> javaFiles = files.subList(0, 200);
+    assertThat(partitions).filteredOn(p -> p.containsAll(javaFiles)).hasSize(1);
+    assertThat(partitions.stream().mapToInt(List::size).sum()).isEqualTo(files.size());
+  }
+
+  @Test
+  public void should_read_properties() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put(AnalysisPartitioner.PARTITIONS_PROPERTY, "2");
+    properties.put(AnalysisPartitioner.WHOLE_PROJECT_LANGUAGES_PROPERTY, "java, ");
+    List<ClientInputFile> files = new ArrayList<>();
+    files.addAll(files("java", 200, 10));
+    files.addAll(files("js", 200, 10));
+
+    List<List<ClientInputFile>> partitions = AnalysisPartitioner.fromProperties(properties).partition(files);
+
+    assertThat(partitions).hasSize(2);
+    assertThat(partitions).filteredOn(p -> p.containsAll(files.subList(0, 200))).hasSize(1);
+  }
+}
@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Rule;
@@ -41,6 +42,7 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.ModuleConfiguration.Builde
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class IssueStoreReaderTest {
@@ -188,6 +190,36 @@ public class IssueStoreReaderTest {
       .containsOnly(createApiIssue("module1", "path2"));
   }
 
+  @Test
+  public void testSeveralFiles() {
+    // setup module hierarchy
+    Map<String, String> modulePaths = new HashMap<>();
+    modulePaths.put(MODULE_KEY, "");
+    modulePaths.put("root:module1", "module1/src");
+
+    Builder moduleConfigBuilder = ModuleConfiguration.newBuilder();
+    moduleConfigBuilder.getMutableModulePathByKey().putAll(modulePaths);
+
+    when(storage.readModuleConfigFromStorage(MODULE_KEY)).thenReturn(moduleConfigBuilder.build());
+
+    // setup issues
+    issueStore.save(Arrays.asList(
+      createServerIssue("root:module1", "path1"),
+      createServerIssue(MODULE_KEY, "path2")));
+
+    // test
+    Map<String, List<ServerIssue>> issuesByFile = issueStoreReader.getServerIssues(MODULE_KEY, Arrays.asList("module1/src/path1", "path2", "path3"));
+    assertThat(issuesByFile).containsOnlyKeys("module1/src/path1", "path2", "path3");
+    assertThat(issuesByFile.get("module1/src/path1"))
+      .usingElementComparator(simpleComparator)
+      .containsOnly(createApiIssue(MODULE_KEY, "module1/src/path1"));
+    assertThat(issuesByFile.get("path2"))
+      .usingElementComparator(simpleComparator)
+      .containsOnly(createApiIssue(MODULE_KEY, "path2"));
+    assertThat(issuesByFile.get("path3")).isEmpty();
+    verify(storage).readModuleConfigFromStorage(MODULE_KEY);
+  }
+
   private Comparator<ServerIssue> simpleComparator = new Comparator<ServerIssue>() {
     @Override
     public int compare(ServerIssue o1, ServerIssue o2) {
@@ -19,10 +19,24 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.junit.Test;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class CachingIssueTrackerImplTest {
 
@@ -40,4 +54,283 @@ public class CachingIssueTrackerImplTest {
     tracker.shutdown();
     verify(cache).shutdown();
   }
+
+  @Test
+  public void should_share_line_hashes_until_content_changes() {
+    LineHashes hashes = tracker.getLineHashes("file", "line1\nline2");
+    assertThat(tracker.getLineHashes("file", "line1\nline2")).isSameAs(hashes);
+    assertThat(tracker.getLineHashes("other", "line1\nline2")).isNotSameAs(hashes);
+
+    LineHashes changed = tracker.getLineHashes("file", "line1\nline2\n");
+    assertThat(changed).isNotSameAs(hashes);
+    assertThat(changed.lineCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_release_line_hashes_once_file_is_tracked() {
+    LineHashes hashes = tracker.getLineHashes("file", "content");
+    tracker.matchAndTrackAsNew("file", Collections.emptyList());
+    assertThat(tracker.getLineHashes("file", "content")).isNotSameAs(hashes);
+  }
+
+  @Test
+  public void should_release_index_of_files_evicted_from_cache() {
+    IssueTrackerCacheSettings settings = IssueTrackerCacheSettings.builder()
+      .setMaxWeight(2L * IssueTrackerCacheSettings.ENTRY_OVERHEAD)
+      .setTrackableWeight(0)
+      .build();
+    PersistentIssueTrackerCache persistentCache = new PersistentIssueTrackerCache(mock(IssueStore.class), mock(Logger.class), settings, Runnable::run);
+    CachingIssueTrackerImpl evictingTracker = new CachingIssueTrackerImpl(persistentCache);
+    Collection<Trackable> trackables = Collections.singletonList(new SimpleTrackable("rule", "message", 1, 1, null));
+
+    evictingTracker.matchAndTrackAsNew("file1", trackables);
+    evictingTracker.matchAndTrackAsNew("file2", trackables);
+    assertThat(evictingTracker.isIndexed("file1")).isTrue();
+
+    evictingTracker.matchAndTrackAsNew("file3", trackables);
+    assertThat(evictingTracker.isIndexed("file1")).isFalse();
+    assertThat(evictingTracker.isIndexed("file2")).isTrue();
+    assertThat(evictingTracker.isIndexed("file3")).isTrue();
+  }
+
+  @Test
+  public void should_track_moved_issues_with_shared_line_hashes() {
+    CachingIssueTrackerImpl realTracker = new CachingIssueTrackerImpl(new InMemoryIssueTrackerCache());
+    String content = "class A {\n  int a;\n  int b;\n}";
+    LineHashes hashes = realTracker.getLineHashes("file", content);
+    realTracker.matchAndTrackAsNew("file", Arrays.asList(
+      IssueTrackable.withLineHashes(mockIssue("rule1", "message", 2), null, null, hashes),
+      IssueTrackable.withLineHashes(mockIssue("rule1", "message", 3), null, null, hashes)));
+
+    // lines moved and messages changed: only line hashes can match issues
+    String newContent = "// comment\nclass A {\n  int a;\n  int b;\n}";
+    LineHashes newHashes = realTracker.getLineHashes("file", newContent);
+    assertThat(realTracker.getLineHashes("file", newContent)).isSameAs(newHashes);
+    Collection<Trackable> tracked = realTracker.matchAndTrackAsNew("file", Arrays.asList(
+      IssueTrackable.withLineHashes(mockIssue("rule1", "new message", 4), null, null, newHashes),
+      IssueTrackable.withLineHashes(mockIssue("rule1", "new message", 3), null, null, newHashes)));
+
+    assertThat(tracked).hasOnlyElementsOfType(CombinedTrackable.class);
+    assertThat(tracked).extracting(Trackable::getLineHash).containsExactly(hashes.getHash(3), hashes.getHash(2));
+  }
+
+  @Test
+  public void concurrent_tracking_should_give_same_results_as_serial_tracking() throws Exception {
+    int files = 2000;
+    int rounds = 3;
+    Random random = new Random(7);
+    // rounds of raw issues for each file, with issues that appear, disappear and move around
+    List<List<Collection<Trackable>>> raws = new ArrayList<>();
+    for (int round = 0; round < rounds; round++) {
+      List<Collection<Trackable>> roundRaws = new ArrayList<>();
+      for (int f = 0; f < files; f++) {
+        roundRaws.add(randomTrackables(random));
+      }
+      raws.add(roundRaws);
+    }
+    List<Collection<Trackable>> serverIssues = new ArrayList<>();
+    for (int f = 0; f < files; f++) {
+      serverIssues.add(randomTrackables(random));
+    }
+
+    CachingIssueTrackerImpl serialTracker = new CachingIssueTrackerImpl(new InMemoryIssueTrackerCache());
+    List<String> expected = new ArrayList<>();
+    for (int round = 0; round < rounds; round++) {
+      for (int f = 0; f < files; f++) {
+        expected.add(summary(serialTracker.matchAndTrackAsNew("file" + f, raws.get(round).get(f))));
+        expected.add(summary(serialTracker.matchAndTrackAsBase("file" + f, serverIssues.get(f))));
+      }
+    }
+
+    CachingIssueTrackerImpl concurrentTracker = new CachingIssueTrackerImpl(new InMemoryIssueTrackerCache());
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<String> actual = new ArrayList<>();
+    try {
+      for (int round = 0; round < rounds; round++) {
+        int r = round;
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int f = 0; f < files; f++) {
+          int file = f;
+          futures.add(executor.submit(() -> {
+            List<String> results = new ArrayList<>();
+            results.add(summary(concurrentTracker.matchAndTrackAsNew("file" + file, raws.get(r).get(file))));
+            results.add(summary(concurrentTracker.matchAndTrackAsBase("file" + file, serverIssues.get(file))));
+            return results;
+          }));
+        }
+        for (Future<List<String>> future : futures) {
+          actual.addAll(future.get());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  @Test
+  public void incremental_tracking_should_give_same_results_as_full_tracking() {
+    Random random = new Random(3);
+    int rules = 20;
+    boolean[] present = new boolean[rules];
+    int[] lines = new int[rules];
+    int[] messages = new int[rules];
+    CachingIssueTrackerImpl incrementalTracker = new CachingIssueTrackerImpl(new InMemoryIssueTrackerCache());
+    IssueTrackerImpl fullTracker = new IssueTrackerImpl();
+
+    Collection<Trackable> previous = null;
+    for (int round = 0; round < 100; round++) {
+      // issues appear, disappear, move and change message between analyses. One issue per rule, to avoid ambiguous matches.
+      List<Trackable> raws = new ArrayList<>();
+      for (int r = 0; r < rules; r++) {
+        if (random.nextInt(10) == 0) {
+          present[r] = !present[r];
+        }
+        if (random.nextInt(10) == 0) {
+          lines[r] = random.nextInt(20);
+        }
+        if (random.nextInt(10) == 0) {
+          messages[r] = random.nextInt(3);
+        }
+        if (present[r]) {
+          raws.add(new SimpleTrackable("rule" + r, "message" + messages[r], lines[r], lines[r] % 4, null));
+        }
+      }
+
+      Collection<Trackable> expected = previous == null ? raws : fullTracker.apply(previous, raws, false);
+      assertThat(summary(incrementalTracker.matchAndTrackAsNew("file", raws))).isEqualTo(summary(expected));
+      previous = expected;
+    }
+  }
+
+  @Test
+  public void should_prefer_identical_issue_when_tracking_incrementally() {
+    CachingIssueTrackerImpl incrementalTracker = new CachingIssueTrackerImpl(new InMemoryIssueTrackerCache());
+    incrementalTracker.matchAndTrackAsNew("file", Arrays.asList(
+      new SimpleTrackable("rule", "other message", 1, 1, "other"),
+      new SimpleTrackable("rule", "message", 1, 1, "identical")));
+
+    // a full tracking would match the first issue on the same line
+    Collection<Trackable> tracked = incrementalTracker.matchAndTrackAsNew("file", Collections.singletonList(new SimpleTrackable("rule", "message", 1, 1, null)));
+    assertThat(tracked).extracting(Trackable::getServerIssueKey).containsExactly("identical");
+    assertThat(new IssueTrackerImpl().apply(Arrays.asList(
+      new SimpleTrackable("rule", "other message", 1, 1, "other"),
+      new SimpleTrackable("rule", "message", 1, 1, "identical")), Collections.singletonList(new SimpleTrackable("rule", "message", 1, 1, null)), false))
+        .extracting(Trackable::getServerIssueKey).containsExactly("other");
+  }
+
+  private static Issue mockIssue(String ruleKey, String message, int line) {
+    Issue issue = mock(Issue.class);
+    when(issue.getRuleKey()).thenReturn(ruleKey);
+    when(issue.getMessage()).thenReturn(message);
+    when(issue.getStartLine()).thenReturn(line);
+    return issue;
+  }
+
+  private static Collection<Trackable> randomTrackables(Random random) {
+    List<Trackable> trackables = new ArrayList<>();
+    int count = random.nextInt(6);
+    for (int i = 0; i < count; i++) {
+      int line = 1 + random.nextInt(10);
+      String serverIssueKey = random.nextBoolean() ? ("key" + random.nextInt(4)) : null;
+      trackables.add(new SimpleTrackable("rule" + random.nextInt(3), "message" + random.nextInt(2), line, line % 4, serverIssueKey));
+    }
+    return trackables;
+  }
+
+  private static String summary(Collection<Trackable> trackables) {
+    // creation dates of new issues depend on the time of the tracking
+    return trackables.stream()
+      .map(t -> String.join("|", t.getClass().getSimpleName(), t.getRuleKey(), t.getMessage(), String.valueOf(t.getLine()),
+        String.valueOf(t.getLineHash()), String.valueOf(t.getServerIssueKey()), String.valueOf(t.getCreationDate() != null)))
+      .sorted()
+      .collect(Collectors.joining(","));
+  }
+
+  private static class SimpleTrackable implements Trackable {
+    private final String ruleKey;
+    private final String message;
+    private final Integer line;
+    private final Integer lineHash;
+    private final String serverIssueKey;
+
+    private SimpleTrackable(String ruleKey, String message, Integer line, Integer lineHash, @Nullable String serverIssueKey) {
+      this.ruleKey = ruleKey;
+      this.message = message;
+      this.line = line;
+      this.lineHash = lineHash;
+      this.serverIssueKey = serverIssueKey;
+    }
+
+    @Override
+    public Issue getIssue() {
+      return null;
+    }
+
+    @Override
+    public String getRuleKey() {
+      return ruleKey;
+    }
+
+    @Override
+    public String getRuleName() {
+      return null;
+    }
+
+    @Override
+    public String getSeverity() {
+      return null;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String getType() {
+      return null;
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public Integer getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public TextRange getTextRange() {
+      return null;
+    }
+
+    @Override
+    public Integer getTextRangeHash() {
+      return null;
+    }
+
+    @Override
+    public Long getCreationDate() {
+      return serverIssueKey != null ? 1000L : null;
+    }
+
+    @Override
+    public String getServerIssueKey() {
+      return serverIssueKey;
+    }
+
+    @Override
+    public boolean isResolved() {
+      return false;
+    }
+
+    @Override
+    public String getAssignee() {
+      return "";
+    }
+  }
 }
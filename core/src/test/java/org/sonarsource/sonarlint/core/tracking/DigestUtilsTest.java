@@ -0,0 +1,126 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DigestUtilsTest {
+
+  private static final String[] SAMPLES = {
+    "",
+    "   ",
+    "int a = 42;",
+    " \t foo(bar)\r\n\u000B\f",
+    "caf\u00e9 \u20ac \u4e2d\u6587",
+    "emoji \uD83D\uDE00 end",
+    "split \uD83D \uDE00 pair",
+    "lone \uD83D high",
+    "lone \uDE00 low",
+    "trailing high \uD83D",
+    "non breaking space"
+  };
+
+  @Test
+  public void should_digest_like_regex_based_implementation() throws Exception {
+    for (String sample : SAMPLES) {
+      assertThat(DigestUtils.digest(sample)).as(sample).isEqualTo(referenceDigest(sample));
+    }
+  }
+
+  @Test
+  public void should_compute_hash_code_of_hex_digest() throws Exception {
+    for (String sample : SAMPLES) {
+      assertThat(DigestUtils.digestHashCode(sample)).as(sample).isEqualTo(referenceDigest(sample).hashCode());
+    }
+  }
+
+  @Test
+  public void should_digest_content_larger_than_buffer() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    Random random = new Random(1);
+    for (int i = 0; i < 5000; i++) {
+      sb.append((char) (random.nextInt(0xD000)));
+    }
+    String content = sb.toString();
+    assertThat(DigestUtils.digest(content)).isEqualTo(referenceDigest(content));
+    assertThat(DigestUtils.digest(new StringBuilder(content))).isEqualTo(referenceDigest(content));
+  }
+
+  @Test
+  public void should_be_thread_safe() throws Exception {
+    List<String> contents = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      contents.add("line " + i + " content;");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<Boolean>> tasks = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        tasks.add(() -> {
+          for (int round = 0; round < 20; round++) {
+            for (String content : contents) {
+              if (!DigestUtils.digest(content).equals(referenceDigest(content))) {
+                return false;
+              }
+            }
+          }
+          return true;
+        });
+      }
+      for (Future<Boolean> result : executor.invokeAll(tasks)) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void should_ignore_whitespace_in_fast_hash() {
+    assertThat(ContentHash.FAST.hash(" a b\tc\n")).isEqualTo(ContentHash.FAST.hash("abc"));
+    assertThat(ContentHash.FAST.hash("abc")).isNotEqualTo(ContentHash.FAST.hash("acb"));
+    assertThat(ContentHash.FAST.hashOrNull(null)).isNull();
+  }
+
+  @Test
+  public void should_be_compatible_with_md5_in_compatible_hash() throws Exception {
+    assertThat(ContentHash.MD5_COMPATIBLE.hash("int a = 42;")).isEqualTo(referenceDigest("int a = 42;").hashCode());
+  }
+
+  private static String referenceDigest(String content) throws Exception {
+    byte[] data = MessageDigest.getInstance("MD5").digest(content.replaceAll("[\\s]", "").getBytes(UTF_8));
+    StringBuilder sb = new StringBuilder();
+    for (byte b : data) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+}
@@ -22,7 +22,6 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -30,12 +29,11 @@ import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMappe
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.contains;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 // note: most methods of the subject are already tested by higher level uses
 public class IndexedObjectStoreTest {
@@ -45,7 +43,6 @@ public class IndexedObjectStoreTest {
   @Test
   public void should_log_failures_to_delete_invalid_files() throws IOException {
     StoreIndex<String> index = mock(StoreIndex.class);
-    when(index.keys()).thenReturn(Collections.singleton("dummy key"));
 
     // attempt to delete this with Files.deleteIfExists will fail
     Path nonEmptyDir = temporaryFolder.newFolder().toPath();
@@ -57,10 +54,9 @@ public class IndexedObjectStoreTest {
     Writer<String> writer = (outputStream, values) -> {};
     Logger logger = mock(Logger.class);
     IndexedObjectStore<String, String> store = new IndexedObjectStore<>(index, mapper, reader, writer, validator, logger);
-    store.deleteInvalid();
+    assertThat(store.deleteIfInvalid("dummy key")).isTrue();
 
     verify(logger).error(contains("failed to delete file"), any());
-    verify(logger).debug(eq("1 entries removed from the store"));
   }
 
 }
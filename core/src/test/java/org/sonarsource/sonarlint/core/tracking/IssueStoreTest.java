@@ -31,8 +31,11 @@ import java.util.stream.Collectors;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -132,6 +135,87 @@ public class IssueStoreTest {
     assertThat(issueStore.contains(validFileKey)).isTrue();
   }
 
+  @Test
+  public void should_remove_entries_without_valid_files_in_background_when_reopened() throws Exception {
+    Path base = temporaryFolder.newFolder().toPath();
+    Path storePath = base.resolve("store");
+    Path projectPath = base.resolve("project");
+    IssueStore issueStore = new IssueStore(storePath, projectPath, mock(Logger.class));
+    issueStore.save("nonexistent", Collections.emptyList());
+    issueStore.close();
+
+    issueStore = new IssueStore(storePath, projectPath, mock(Logger.class));
+    // validations run one after the other, so this waits for the validation started by the constructor
+    issueStore.validateInBackground(true, null).get();
+    assertThat(issueStore.contains("nonexistent")).isFalse();
+  }
+
+  @Test
+  public void incremental_validation_should_only_check_keys_saved_since_last_validation() throws IOException {
+    Path base = temporaryFolder.newFolder().toPath();
+    Path projectPath = base.resolve("project");
+    IssueStore issueStore = new IssueStore(base.resolve("store"), projectPath, mock(Logger.class));
+
+    Path file = projectPath.resolve("file");
+    Files.createDirectories(projectPath);
+    Files.createFile(file);
+    issueStore.save("file", Collections.emptyList());
+    issueStore.validate(false, null);
+    Files.delete(file);
+
+    issueStore.save("nonexistent", Collections.emptyList());
+    issueStore.validate(true, null);
+    assertThat(issueStore.contains("nonexistent")).isFalse();
+    assertThat(issueStore.contains("file")).isTrue();
+
+    issueStore.validate(false, null);
+    assertThat(issueStore.contains("file")).isFalse();
+  }
+
+  @Test
+  public void validation_should_not_check_keys_saved_after_it_started() throws IOException {
+    IssueStore issueStore = newIssueStore();
+    issueStore.save("first", Collections.emptyList());
+    issueStore.save("second", Collections.emptyList());
+
+    ProgressMonitor monitor = new ProgressMonitor() {
+      @Override
+      public void setFraction(float fraction) {
+        try {
+          issueStore.save("first", Collections.emptyList());
+          issueStore.save("second", Collections.emptyList());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+    issueStore.validate(false, monitor);
+    assertThat(issueStore.contains("first")).isTrue();
+    assertThat(issueStore.contains("second")).isTrue();
+
+    issueStore.validate(true, null);
+    assertThat(issueStore.contains("first")).isFalse();
+    assertThat(issueStore.contains("second")).isFalse();
+  }
+
+  @Test
+  public void canceled_validation_should_leave_entries_for_next_validation() throws IOException {
+    IssueStore issueStore = newIssueStore();
+    issueStore.save("nonexistent", Collections.emptyList());
+
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    when(monitor.isCanceled()).thenReturn(true);
+    try {
+      issueStore.validate(false, monitor);
+      fail("Expected CanceledException");
+    } catch (CanceledException e) {
+      assertThat(issueStore.contains("nonexistent")).isTrue();
+    }
+
+    issueStore.validate(true, null);
+    assertThat(issueStore.contains("nonexistent")).isFalse();
+  }
+
   @Test(expected = IllegalStateException.class)
   public void should_fail_to_create_issue_store_if_cannot_write_to_filesystem() throws IOException {
     Path base = temporaryFolder.newFolder().toPath();
@@ -154,6 +238,31 @@ public class IssueStoreTest {
     issueStore.save("filePath", Collections.emptyList());
   }
 
+  @Test
+  public void segments_backend_should_keep_issues_across_instances() throws IOException {
+    Path base = temporaryFolder.newFolder().toPath();
+    Path storePath = base.resolve("store");
+    Path projectPath = base.resolve("project");
+    String key = "some/relative/path";
+    Files.createDirectories(projectPath.resolve(key).getParent());
+    Files.createFile(projectPath.resolve(key));
+
+    IssueStore issueStore = new IssueStore(storePath, projectPath, mock(Logger.class), IssueStore.Backend.SEGMENTS);
+    issueStore.save(key, Arrays.asList(newMockTrackable(), newMockTrackable()));
+    issueStore.save("nonexistent", Collections.emptyList());
+    issueStore.close();
+
+    issueStore = new IssueStore(storePath, projectPath, mock(Logger.class), IssueStore.Backend.SEGMENTS);
+    issueStore.validate(false, null);
+    assertThat(issueStore.read(key)).hasSize(2);
+    assertThat(issueStore.contains("nonexistent")).isFalse();
+
+    issueStore.clear();
+    assertThat(issueStore.contains(key)).isFalse();
+    issueStore.save(key, Collections.emptyList());
+    assertThat(issueStore.read(key)).isEmpty();
+  }
+
   private Trackable newMockTrackable() {
     Trackable trackable = mock(Trackable.class);
     when(trackable.getRuleKey()).thenReturn("ruleKey" + counter.incrementAndGet());
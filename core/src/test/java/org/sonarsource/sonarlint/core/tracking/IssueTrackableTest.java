@@ -52,7 +52,7 @@ public class IssueTrackableTest {
     String textRangeContent = "text range content";
     String lineContent = "line content";
     IssueTrackable trackable = new IssueTrackable(issue, null, textRangeContent, lineContent);
-    assertThat(trackable.getTextRangeHash()).isEqualTo(hash(textRangeContent));
+    assertThat(trackable.getTextRangeHash()).isEqualTo(ContentHash.FAST.hash(textRangeContent));
     assertThat(trackable.getLineHash()).isEqualTo(hash(lineContent));
   }
 
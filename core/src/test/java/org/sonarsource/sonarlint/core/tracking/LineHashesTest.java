@@ -0,0 +1,93 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LineHashesTest {
+
+  @Test
+  public void should_hash_each_line_like_issue_trackable() {
+    LineHashes hashes = LineHashes.compute("first line\nsecond  line\r\nthird\rfourth");
+
+    assertThat(hashes.lineCount()).isEqualTo(4);
+    assertThat(hashes.getHash(1)).isEqualTo(lineHash("first line"));
+    assertThat(hashes.getHash(2)).isEqualTo(lineHash("second  line"));
+    assertThat(hashes.getHash(3)).isEqualTo(lineHash("third"));
+    assertThat(hashes.getHash(4)).isEqualTo(lineHash("fourth"));
+  }
+
+  @Test
+  public void should_have_empty_last_line_after_trailing_line_terminator() {
+    LineHashes hashes = LineHashes.compute("line\n");
+    assertThat(hashes.lineCount()).isEqualTo(2);
+    assertThat(hashes.getHash(2)).isEqualTo(lineHash(""));
+    assertThat(LineHashes.compute("").lineCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_return_null_for_lines_out_of_content() {
+    LineHashes hashes = LineHashes.compute("a\nb");
+    assertThat(hashes.getHash(null)).isNull();
+    assertThat(hashes.getHash(0)).isNull();
+    assertThat(hashes.getHash(3)).isNull();
+  }
+
+  @Test
+  public void should_grow_for_many_lines() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= 1000; i++) {
+      sb.append("line ").append(i).append('\n');
+    }
+    LineHashes hashes = LineHashes.compute(sb);
+    assertThat(hashes.lineCount()).isEqualTo(1001);
+    assertThat(hashes.getHash(500)).isEqualTo(lineHash("line 500"));
+  }
+
+  @Test
+  public void should_detect_content_changes() {
+    LineHashes hashes = LineHashes.compute("a b\nc");
+    assertThat(hashes.isComputedFrom("a b\nc")).isTrue();
+    assertThat(hashes.isComputedFrom(new StringBuilder("a b\nc"))).isTrue();
+    assertThat(hashes.isComputedFrom("ab \nc")).isFalse();
+    assertThat(hashes.isComputedFrom("a b\nc\n")).isFalse();
+  }
+
+  @Test
+  public void should_create_trackable_with_shared_line_hash() {
+    Issue issue = mock(Issue.class);
+    when(issue.getStartLine()).thenReturn(2);
+    LineHashes hashes = LineHashes.compute("foo\nbar");
+
+    IssueTrackable trackable = IssueTrackable.withLineHashes(issue, null, "ba", hashes);
+
+    assertThat(trackable.getLineHash()).isEqualTo(lineHash("bar"));
+    assertThat(trackable.getTextRangeHash()).isEqualTo(new IssueTrackable(issue, null, "ba", "bar").getTextRangeHash());
+  }
+
+  private static Integer lineHash(String lineContent) {
+    return new IssueTrackable(mock(Issue.class), null, null, lineContent).getLineHash();
+  }
+}
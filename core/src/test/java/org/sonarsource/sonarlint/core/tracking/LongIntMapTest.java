@@ -0,0 +1,61 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongIntMapTest {
+
+  @Test
+  public void should_return_no_value_for_missing_keys() {
+    LongIntMap map = new LongIntMap(0);
+    assertThat(map.get(42)).isEqualTo(LongIntMap.NO_VALUE);
+    assertThat(map.size()).isZero();
+  }
+
+  @Test
+  public void should_keep_all_entries_when_growing() {
+    LongIntMap map = new LongIntMap(0);
+    for (int i = 0; i < 10_000; i++) {
+      map.put(((long) i << 32) | i, i);
+    }
+    assertThat(map.size()).isEqualTo(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(map.get(((long) i << 32) | i)).isEqualTo(i);
+    }
+    assertThat(map.get(-1L)).isEqualTo(LongIntMap.NO_VALUE);
+  }
+
+  @Test
+  public void should_replace_existing_value() {
+    LongIntMap map = new LongIntMap(4);
+    map.put(7, 1);
+    map.put(7, 2);
+    assertThat(map.get(7)).isEqualTo(2);
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_reject_negative_values() {
+    new LongIntMap(4).put(1, -1);
+  }
+}
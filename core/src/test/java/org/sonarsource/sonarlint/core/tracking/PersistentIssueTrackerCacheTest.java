@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.tracking;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,6 +44,13 @@ public class PersistentIssueTrackerCacheTest {
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
+  // entries without trackables, that fit in the configured weight
+  private static final int MAX_ENTRIES = 100;
+
+  private final IssueTrackerCacheSettings settings = IssueTrackerCacheSettings.builder()
+    .setMaxWeight(MAX_ENTRIES * IssueTrackerCacheSettings.ENTRY_OVERHEAD)
+    .build();
+
   private PersistentIssueTrackerCache cache;
   private StubIssueStore stubIssueStore;
 
@@ -81,13 +89,14 @@ public class PersistentIssueTrackerCacheTest {
   @Before
   public void setUp() throws IOException {
     stubIssueStore = new StubIssueStore();
-    cache = new PersistentIssueTrackerCache(stubIssueStore, mock(Logger.class));
+    // write synchronously to make tests deterministic
+    cache = new PersistentIssueTrackerCache(stubIssueStore, mock(Logger.class), settings, Runnable::run);
   }
 
   @Test
   public void should_persist_issues_when_inmemory_limit_reached() {
     int i = 0;
-    for (; i < PersistentIssueTrackerCache.MAX_ENTRIES; i++) {
+    for (; i < MAX_ENTRIES; i++) {
       cache.put("file" + i, Collections.emptyList());
     }
     assertThat(stubIssueStore.size()).isEqualTo(0);
@@ -101,7 +110,7 @@ public class PersistentIssueTrackerCacheTest {
 
   @Test
   public void should_persist_issues_on_shutdown() {
-    int count = PersistentIssueTrackerCache.MAX_ENTRIES / 2;
+    int count = MAX_ENTRIES / 2;
     for (int i = 0; i < count; i++) {
       cache.put("file" + i, Collections.emptyList());
     }
@@ -185,13 +194,99 @@ public class PersistentIssueTrackerCacheTest {
     verify(store).save(file, trackables);
   }
 
-  @Test(expected = IllegalStateException.class)
-  public void put_should_crash_on_io_failures_during_store_write() throws IOException {
+  @Test
+  public void put_should_log_io_failures_during_store_write() throws IOException {
     IssueStore store = mock(IssueStore.class);
-    doThrow(new IOException("failed to write to store")).when(store).save(anyString(), any());
-    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(store, mock(Logger.class));
-    for (int i = 0; i < PersistentIssueTrackerCache.MAX_ENTRIES + 1; i++) {
+    IOException exception = new IOException("failed to write to store");
+    doThrow(exception).when(store).save(anyString(), any());
+    Logger logger = mock(Logger.class);
+    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(store, logger, settings, Runnable::run);
+    for (int i = 0; i < MAX_ENTRIES + 1; i++) {
       cache.put("dummy" + i, Collections.emptyList());
     }
+    verify(logger).error("Error persisting issues for dummy0", exception);
+  }
+
+  @Test
+  public void should_read_evicted_issues_not_yet_persisted() {
+    List<Runnable> writes = new ArrayList<>();
+    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(stubIssueStore, mock(Logger.class), settings, writes::add);
+    List<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
+    cache.put("file0", trackables);
+    for (int i = 1; i <= MAX_ENTRIES; i++) {
+      cache.put("file" + i, Collections.emptyList());
+    }
+    assertThat(stubIssueStore.size()).isEqualTo(0);
+    assertThat(cache.isFirstAnalysis("file0")).isFalse();
+    assertThat(cache.getCurrentTrackables("file0")).containsExactlyElementsOf(trackables);
+
+    writes.forEach(Runnable::run);
+    assertThat(stubIssueStore.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_persist_issues_on_shutdown_with_background_writer() {
+    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(stubIssueStore, mock(Logger.class), settings);
+    int count = MAX_ENTRIES * 2;
+    for (int i = 0; i < count; i++) {
+      cache.put("file" + i, Collections.emptyList());
+    }
+
+    cache.shutdown();
+    assertThat(stubIssueStore.size()).isEqualTo(count);
+  }
+
+  @Test
+  public void should_evict_by_weight_of_trackables() {
+    Collection<Trackable> heavy = Collections.nCopies(10, mock(Trackable.class));
+    IssueTrackerCacheSettings weighted = IssueTrackerCacheSettings.builder()
+      .setMaxWeight(3 * IssueTrackerCacheSettings.ENTRY_OVERHEAD + 10 * 100)
+      .setTrackableWeight(100)
+      .build();
+    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(stubIssueStore, mock(Logger.class), weighted, Runnable::run);
+
+    cache.put("small1", Collections.emptyList());
+    cache.put("small2", Collections.emptyList());
+    cache.put("heavy", heavy);
+    assertThat(stubIssueStore.size()).isEqualTo(0);
+
+    cache.put("small3", Collections.emptyList());
+    assertThat(stubIssueStore.contains("small1")).isTrue();
+    assertThat(cache.getStats().getEntryCount()).isEqualTo(3);
+    assertThat(cache.getStats().getWeight()).isEqualTo(3 * IssueTrackerCacheSettings.ENTRY_OVERHEAD + 10 * 100);
+  }
+
+  @Test
+  public void should_count_hits_misses_and_evictions() {
+    for (int i = 0; i < MAX_ENTRIES + 2; i++) {
+      cache.put("file" + i, Collections.emptyList());
+    }
+    cache.getCurrentTrackables("file" + MAX_ENTRIES);
+    cache.getCurrentTrackables("file0");
+    cache.getCurrentTrackables("nonexistent");
+
+    IssueTrackerCacheStats stats = cache.getStats();
+    assertThat(stats.getHitCount()).isEqualTo(1);
+    assertThat(stats.getMissCount()).isEqualTo(2);
+    assertThat(stats.getEvictionCount()).isEqualTo(2);
+    assertThat(stats.getEntryCount()).isEqualTo(MAX_ENTRIES);
+  }
+
+  @Test
+  public void should_persist_with_tiny_lfu_policy() {
+    IssueTrackerCacheSettings tinyLfu = IssueTrackerCacheSettings.builder()
+      .setMaxWeight(MAX_ENTRIES * IssueTrackerCacheSettings.ENTRY_OVERHEAD)
+      .setEvictionPolicy(IssueTrackerCacheSettings.EvictionPolicy.W_TINY_LFU)
+      .build();
+    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(stubIssueStore, mock(Logger.class), tinyLfu, Runnable::run);
+    int count = MAX_ENTRIES * 3;
+    for (int i = 0; i < count; i++) {
+      cache.put("file" + i, Collections.emptyList());
+    }
+    assertThat(cache.getStats().getEntryCount()).isEqualTo(MAX_ENTRIES);
+    assertThat(stubIssueStore.size()).isEqualTo(count - MAX_ENTRIES);
+
+    cache.shutdown();
+    assertThat(stubIssueStore.size()).isEqualTo(count);
   }
 }
@@ -0,0 +1,231 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class SegmentObjectStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Reader<String> reader = is -> {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[16];
+      int n;
+      while ((n = is.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return new String(out.toByteArray(), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  };
+
+  private final Writer<String> writer = (os, value) -> {
+    try {
+      os.write(value.getBytes(UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  };
+
+  private Path basePath;
+
+  @Before
+  public void setUp() throws IOException {
+    basePath = temporaryFolder.newFolder().toPath().resolve("segments");
+  }
+
+  @Test
+  public void should_read_what_was_written() throws IOException {
+    SegmentObjectStore<String> store = newStore(1024);
+    assertThat(store.read("a")).isEmpty();
+    assertThat(store.contains("a")).isFalse();
+
+    store.write("a", "foo");
+    store.write("b", "");
+    assertThat(store.read("a")).contains("foo");
+    assertThat(store.read("b")).contains("");
+    assertThat(store.contains("a")).isTrue();
+
+    store.write("a", "bar");
+    assertThat(store.read("a")).contains("bar");
+
+    store.delete("a");
+    store.delete("nonexistent");
+    assertThat(store.read("a")).isEmpty();
+    assertThat(store.contains("a")).isFalse();
+  }
+
+  @Test
+  public void should_restore_entries_when_reopened() throws IOException {
+    SegmentObjectStore<String> store = newStore(1024);
+    store.write("a", "foo");
+    store.write("b", "bar");
+    store.write("a", "baz");
+    store.delete("b");
+    store.write("\u00e9t\u00e9", "summer");
+    store.close();
+
+    store = newStore(1024);
+    assertThat(store.read("a")).contains("baz");
+    assertThat(store.contains("b")).isFalse();
+    assertThat(store.read("\u00e9t\u00e9")).contains("summer");
+  }
+
+  @Test
+  public void should_ignore_incomplete_record_at_the_end_of_a_segment() throws IOException {
+    SegmentObjectStore<String> store = newStore(1024);
+    store.write("a", "foo");
+    store.write("b", "bar");
+    store.close();
+
+    Path segment = segmentFiles()[0];
+    byte[] content = Files.readAllBytes(segment);
+    Files.write(segment, Arrays.copyOf(content, content.length - 2), StandardOpenOption.TRUNCATE_EXISTING);
+
+    store = newStore(1024);
+    assertThat(store.read("a")).contains("foo");
+    assertThat(store.contains("b")).isFalse();
+
+    // new records don't go after the incomplete one
+    store.write("b", "bar2");
+    store.close();
+    assertThat(segmentFiles()).hasSize(2);
+    store = newStore(1024);
+    assertThat(store.read("b")).contains("bar2");
+  }
+
+  @Test
+  public void should_ignore_corrupted_record() throws IOException {
+    SegmentObjectStore<String> store = newStore(1024);
+    store.write("a", "foo");
+    store.close();
+
+    Path segment = segmentFiles()[0];
+    byte[] content = Files.readAllBytes(segment);
+    content[content.length - 1] ^= 1;
+    Files.write(segment, content);
+
+    store = newStore(1024);
+    assertThat(store.contains("a")).isFalse();
+  }
+
+  @Test
+  public void should_compact_dead_records() throws IOException {
+    SegmentObjectStore<String> store = newStore(100);
+    for (int i = 0; i < 1000; i++) {
+      store.write("key" + (i % 5), "value" + i);
+    }
+    // 5 live records of ~30 bytes fit in a couple of segments
+    assertThat(segmentFiles().length).isLessThan(6);
+    for (int i = 0; i < 5; i++) {
+      assertThat(store.read("key" + i)).contains("value" + (995 + i));
+    }
+  }
+
+  @Test
+  public void should_match_a_map_with_random_operations() throws IOException {
+    Random random = new Random(42);
+    Map<String, String> expected = new HashMap<>();
+    SegmentObjectStore<String> store = newStore(200);
+
+    for (int i = 0; i < 5000; i++) {
+      String key = "key" + random.nextInt(30);
+      int op = random.nextInt(10);
+      if (op < 6) {
+        String value = "value" + i;
+        store.write(key, value);
+        expected.put(key, value);
+      } else if (op < 9) {
+        store.delete(key);
+        expected.remove(key);
+      } else {
+        store.close();
+        store = newStore(200);
+      }
+      assertThat(store.read(key).orElse(null)).isEqualTo(expected.get(key));
+    }
+
+    store.close();
+    store = newStore(200);
+    for (int i = 0; i < 30; i++) {
+      String key = "key" + i;
+      assertThat(store.read(key).orElse(null)).isEqualTo(expected.get(key));
+    }
+  }
+
+  @Test
+  public void should_delete_invalid_keys() throws IOException {
+    SegmentObjectStore<String> store = new SegmentObjectStore<>(basePath, reader, writer, k -> k.startsWith("valid"), mock(Logger.class),
+      1024, Runnable::run);
+    store.write("valid", "foo");
+    store.write("invalid", "bar");
+
+    assertThat(store.deleteIfInvalid("valid")).isFalse();
+    assertThat(store.deleteIfInvalid("invalid")).isTrue();
+    assertThat(store.contains("valid")).isTrue();
+    assertThat(store.contains("invalid")).isFalse();
+  }
+
+  @Test
+  public void should_start_over_after_clear() throws IOException {
+    SegmentObjectStore<String> store = newStore(1024);
+    store.write("a", "foo");
+
+    store.clear();
+    assertThat(store.contains("a")).isFalse();
+
+    store.write("b", "bar");
+    assertThat(store.read("b")).contains("bar");
+  }
+
+  private Path[] segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(basePath)) {
+      return files.sorted().toArray(Path[]::new);
+    }
+  }
+
+  private SegmentObjectStore<String> newStore(long maxSegmentSize) {
+    return new SegmentObjectStore<>(basePath, reader, writer, k -> true, mock(Logger.class), maxSegmentSize, Runnable::run);
+  }
+}
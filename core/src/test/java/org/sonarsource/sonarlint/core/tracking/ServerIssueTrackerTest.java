@@ -19,12 +19,21 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
 import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -70,4 +79,77 @@ public class ServerIssueTrackerTest {
     verify(engine).getServerIssues(moduleKey, filePath);
     verifyNoMoreInteractions(engine);
   }
+
+  @Test
+  public void should_download_issues_of_few_files_one_by_one() {
+    String moduleKey = "dummy module";
+    List<String> filePaths = Arrays.asList("file1", "file2");
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    ServerConfiguration serverConfiguration = mock(ServerConfiguration.class);
+    when(engine.downloadServerIssues(serverConfiguration, moduleKey, "file1")).thenReturn(Collections.singletonList(mock(ServerIssue.class)));
+    when(engine.downloadServerIssues(serverConfiguration, moduleKey, "file2")).thenThrow(new DownloadException());
+    CachingIssueTracker issueTracker = mock(CachingIssueTracker.class);
+
+    ServerIssueTracker tracker = new ServerIssueTracker(mock(Logger.class), mock(Console.class), issueTracker);
+    tracker.update(serverConfiguration, engine, moduleKey, filePaths);
+    verify(engine).downloadServerIssues(serverConfiguration, moduleKey, "file1");
+    verify(engine).downloadServerIssues(serverConfiguration, moduleKey, "file2");
+    verify(engine).getServerIssues(moduleKey, "file2");
+    verifyNoMoreInteractions(engine);
+    verify(issueTracker).matchAndTrackAsBase(eq("file1"), argThat(c -> c.size() == 1));
+    verify(issueTracker).matchAndTrackAsBase(eq("file2"), argThat(Collection::isEmpty));
+  }
+
+  @Test
+  public void should_download_issues_of_many_files_at_once() {
+    String moduleKey = "dummy module";
+    List<String> filePaths = filePaths(ServerIssueTracker.MODULE_DOWNLOAD_THRESHOLD);
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    ServerConfiguration serverConfiguration = mock(ServerConfiguration.class);
+    Map<String, List<ServerIssue>> issuesByFile = new HashMap<>();
+    issuesByFile.put("file1", Collections.singletonList(mock(ServerIssue.class)));
+    issuesByFile.put("file2", Collections.emptyList());
+    when(engine.downloadServerIssues(serverConfiguration, moduleKey, filePaths)).thenReturn(issuesByFile);
+    CachingIssueTracker issueTracker = mock(CachingIssueTracker.class);
+
+    ServerIssueTracker tracker = new ServerIssueTracker(mock(Logger.class), mock(Console.class), issueTracker);
+    tracker.update(serverConfiguration, engine, moduleKey, filePaths);
+    verify(engine).downloadServerIssues(serverConfiguration, moduleKey, filePaths);
+    verifyNoMoreInteractions(engine);
+    verify(issueTracker).matchAndTrackAsBase(eq("file1"), argThat(c -> c.size() == 1));
+    verify(issueTracker).matchAndTrackAsBase(eq("file2"), argThat(Collection::isEmpty));
+    verify(issueTracker).matchAndTrackAsBase(eq("file3"), argThat(Collection::isEmpty));
+  }
+
+  @Test
+  public void should_get_issues_of_many_files_from_engine_if_download_failed() {
+    String moduleKey = "dummy module";
+    List<String> filePaths = filePaths(ServerIssueTracker.MODULE_DOWNLOAD_THRESHOLD);
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    ServerConfiguration serverConfiguration = mock(ServerConfiguration.class);
+
+    ServerIssueTracker tracker = new ServerIssueTracker(mock(Logger.class), mock(Console.class), mock(CachingIssueTracker.class));
+    when(engine.downloadServerIssues(serverConfiguration, moduleKey, filePaths)).thenThrow(new DownloadException());
+    tracker.update(serverConfiguration, engine, moduleKey, filePaths);
+    verify(engine).downloadServerIssues(serverConfiguration, moduleKey, filePaths);
+    verify(engine).getServerIssues(moduleKey, filePaths);
+    verifyNoMoreInteractions(engine);
+  }
+
+  @Test
+  public void should_not_download_anything_without_files() {
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+
+    ServerIssueTracker tracker = new ServerIssueTracker(mock(Logger.class), mock(Console.class), mock(CachingIssueTracker.class));
+    tracker.update(mock(ServerConfiguration.class), engine, "dummy module", Collections.emptyList());
+    verifyNoMoreInteractions(engine);
+  }
+
+  private static List<String> filePaths(int count) {
+    List<String> filePaths = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      filePaths.add("file" + i);
+    }
+    return filePaths;
+  }
 }
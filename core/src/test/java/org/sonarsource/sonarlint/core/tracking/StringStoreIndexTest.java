@@ -22,10 +22,13 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 // note: most methods of the subject are already tested by higher level uses
 public class StringStoreIndexTest {
   @Rule
@@ -42,4 +45,64 @@ public class StringStoreIndexTest {
 
     index.keys();
   }
+
+  @Test
+  public void should_replay_journal_when_not_closed() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("a", storeBasePath.resolve("path/a"));
+    index.save("b", storeBasePath.resolve("path/b"));
+    index.delete("a");
+
+    assertThat(storeBasePath.resolve("index.pb.journal")).exists();
+    assertThat(new StringStoreIndex(storeBasePath).keys()).containsOnly("b");
+  }
+
+  @Test
+  public void should_compact_journal_into_snapshot_on_close() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("a", storeBasePath.resolve("path/a"));
+    index.save("b", storeBasePath.resolve("path/b"));
+    index.close();
+
+    assertThat(storeBasePath.resolve("index.pb.journal")).doesNotExist();
+    assertThat(storeBasePath.resolve("index.pb")).exists();
+    assertThat(new StringStoreIndex(storeBasePath).keys()).containsOnly("a", "b");
+  }
+
+  @Test
+  public void should_compact_when_journal_grows() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    for (int i = 0; i < 3000; i++) {
+      index.save("key", storeBasePath.resolve("path" + i));
+    }
+    assertThat(Files.size(storeBasePath.resolve("index.pb.journal"))).isLessThan(3000 * 10);
+    assertThat(new StringStoreIndex(storeBasePath).keys()).containsOnly("key");
+  }
+
+  @Test
+  public void should_recover_from_truncated_journal() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("a", storeBasePath.resolve("path/a"));
+    Files.write(storeBasePath.resolve("index.pb.journal"), new byte[] {42, 1, 2}, StandardOpenOption.APPEND);
+
+    StringStoreIndex recovered = new StringStoreIndex(storeBasePath);
+    assertThat(recovered.keys()).containsOnly("a");
+    assertThat(storeBasePath.resolve("index.pb.journal")).doesNotExist();
+  }
+
+  @Test
+  public void should_forget_keys_on_clear() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("a", storeBasePath.resolve("path/a"));
+    index.close();
+    Files.delete(storeBasePath.resolve("index.pb"));
+
+    index.clear();
+    assertThat(index.keys()).isEmpty();
+  }
 }
@@ -0,0 +1,234 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrackerTest {
+
+  private final Tracker<Trackable, Trackable> tracker = new Tracker<>();
+
+  @Test
+  public void should_match_nothing_when_no_bases() {
+    Trackable raw = new FakeTrackable("rule", 1, "msg", 1, 1, null);
+    Tracking<Trackable, Trackable> tracking = tracker.track(() -> Collections.singletonList(raw), Collections::emptyList);
+    assertThat(tracking.getMatchedRaws()).isEmpty();
+    assertThat(tracking.getUnmatchedRaws()).containsExactly(raw);
+  }
+
+  @Test
+  public void should_match_null_values_together() {
+    Trackable raw = new FakeTrackable("rule", null, "msg", null, null, null);
+    Trackable base = new FakeTrackable("rule", null, "other msg", null, null, null);
+    Tracking<Trackable, Trackable> tracking = tracker.track(() -> Collections.singletonList(raw), () -> Collections.singletonList(base));
+    assertThat(tracking.getMatchedRaws()).containsEntry(raw, base);
+  }
+
+  @Test
+  public void should_not_match_different_rules() {
+    Trackable raw = new FakeTrackable("rule1", 1, "msg", 1, 1, "key");
+    Trackable base = new FakeTrackable("rule2", 1, "msg", 1, 1, null);
+    Tracking<Trackable, Trackable> tracking = tracker.track(() -> Collections.singletonList(raw), () -> Collections.singletonList(base));
+    assertThat(tracking.getMatchedRaws()).isEmpty();
+    assertThat(tracking.getUnmatchedBases()).containsExactly(base);
+  }
+
+  @Test
+  public void should_not_match_blank_server_issue_keys() {
+    Trackable raw = new FakeTrackable("rule1", 1, "msg1", 1, 1, "");
+    Trackable base = new FakeTrackable("rule2", 2, "msg2", 2, 2, "");
+    Tracking<Trackable, Trackable> tracking = tracker.track(() -> Collections.singletonList(raw), () -> Collections.singletonList(base));
+    assertThat(tracking.getMatchedRaws()).isEmpty();
+  }
+
+  @Test
+  public void should_match_first_unmatched_base_in_order() {
+    Trackable base1 = new FakeTrackable("rule", 1, "msg", 10, 20, null);
+    Trackable base2 = new FakeTrackable("rule", 1, "msg", 10, 20, null);
+    Trackable raw1 = new FakeTrackable("rule", 1, "msg", 10, 20, null);
+    Trackable raw2 = new FakeTrackable("rule", 5, "other", 99, 20, null);
+    Tracking<Trackable, Trackable> tracking = tracker.track(() -> Arrays.asList(raw1, raw2), () -> Arrays.asList(base1, base2));
+    assertThat(tracking.getMatchedRaws()).containsEntry(raw1, base1).containsEntry(raw2, base2);
+  }
+
+  @Test
+  public void should_produce_same_matches_as_pass_by_pass_tracking() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      List<Trackable> bases = randomTrackables(random, random.nextInt(60));
+      List<Trackable> raws = randomTrackables(random, random.nextInt(60));
+
+      Tracking<Trackable, Trackable> tracking = tracker.track(() -> raws, () -> bases);
+
+      assertThat(tracking.getMatchedRaws()).isEqualTo(referenceTrack(raws, bases));
+    }
+  }
+
+  private static List<Trackable> randomTrackables(Random random, int count) {
+    List<Trackable> trackables = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      trackables.add(new FakeTrackable(
+        "rule" + random.nextInt(3),
+        random.nextInt(10) == 0 ? null : random.nextInt(8),
+        "msg" + random.nextInt(4),
+        random.nextInt(10) == 0 ? null : random.nextInt(6),
+        random.nextInt(10) == 0 ? null : random.nextInt(6),
+        random.nextInt(3) == 0 ? ("key" + random.nextInt(10)) : null));
+    }
+    return trackables;
+  }
+
+  /**
+   * Straightforward implementation of the matching passes, rebuilding a map of unmatched bases at each pass.
+   */
+  private static Map<Trackable, Trackable> referenceTrack(List<Trackable> raws, List<Trackable> bases) {
+    List<Function<Trackable, List<Object>>> passes = Arrays.asList(
+      t -> Arrays.asList(t.getRuleKey(), t.getLine(), t.getTextRangeHash()),
+      t -> Arrays.asList(t.getRuleKey(), t.getMessage(), t.getTextRangeHash()),
+      t -> Arrays.asList(t.getRuleKey(), t.getLine(), t.getMessage()),
+      t -> Arrays.asList(t.getRuleKey(), t.getTextRangeHash()),
+      t -> Arrays.asList(t.getRuleKey(), t.getLine(), t.getLineHash()),
+      t -> Arrays.asList(t.getRuleKey(), t.getLineHash()),
+      t -> t.getServerIssueKey() == null || t.getServerIssueKey().isEmpty() ? null : Collections.singletonList(t.getServerIssueKey()));
+
+    Map<Trackable, Trackable> rawToBase = new IdentityHashMap<>();
+    Map<Trackable, Trackable> baseToRaw = new IdentityHashMap<>();
+    for (Function<Trackable, List<Object>> pass : passes) {
+      Map<List<Object>, List<Trackable>> baseSearch = new HashMap<>();
+      bases.stream()
+        .filter(b -> !baseToRaw.containsKey(b))
+        .forEach(b -> baseSearch.computeIfAbsent(pass.apply(b), k -> new ArrayList<>()).add(b));
+      for (Trackable raw : raws) {
+        List<Object> key = pass.apply(raw);
+        if (rawToBase.containsKey(raw) || key == null) {
+          continue;
+        }
+        List<Trackable> candidates = baseSearch.get(key);
+        if (candidates != null && !candidates.isEmpty()) {
+          Trackable base = candidates.remove(0);
+          rawToBase.put(raw, base);
+          baseToRaw.put(base, raw);
+        }
+      }
+    }
+    return rawToBase;
+  }
+
+  private static class FakeTrackable implements Trackable {
+    private final String ruleKey;
+    private final Integer line;
+    private final String message;
+    private final Integer lineHash;
+    private final Integer textRangeHash;
+    private final String serverIssueKey;
+
+    FakeTrackable(String ruleKey, Integer line, String message, Integer lineHash, Integer textRangeHash, String serverIssueKey) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.message = message;
+      this.lineHash = lineHash;
+      this.textRangeHash = textRangeHash;
+      this.serverIssueKey = serverIssueKey;
+    }
+
+    @Override
+    public Issue getIssue() {
+      return null;
+    }
+
+    @Override
+    public String getRuleKey() {
+      return ruleKey;
+    }
+
+    @Override
+    public String getRuleName() {
+      return null;
+    }
+
+    @Override
+    public String getSeverity() {
+      return null;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String getType() {
+      return null;
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public Integer getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public TextRange getTextRange() {
+      return null;
+    }
+
+    @Override
+    public Integer getTextRangeHash() {
+      return textRangeHash;
+    }
+
+    @Override
+    public Long getCreationDate() {
+      return null;
+    }
+
+    @Override
+    public String getServerIssueKey() {
+      return serverIssueKey;
+    }
+
+    @Override
+    public boolean isResolved() {
+      return false;
+    }
+
+    @Override
+    public String getAssignee() {
+      return "";
+    }
+  }
+}
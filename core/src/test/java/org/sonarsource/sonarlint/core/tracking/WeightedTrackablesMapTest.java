@@ -0,0 +1,143 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.tracking.IssueTrackerCacheSettings.EvictionPolicy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class WeightedTrackablesMapTest {
+
+  private static final long ENTRY = IssueTrackerCacheSettings.ENTRY_OVERHEAD;
+
+  private final List<String> evicted = new ArrayList<>();
+
+  @Test
+  public void lru_should_evict_least_recently_accessed() {
+    WeightedTrackablesMap map = create(EvictionPolicy.LRU, 3 * ENTRY);
+    map.put("a", Collections.emptyList());
+    map.put("b", Collections.emptyList());
+    map.put("c", Collections.emptyList());
+    map.get("a");
+    map.put("d", Collections.emptyList());
+
+    assertThat(evicted).containsExactly("b");
+    assertThat(map.containsKey("a")).isTrue();
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.weight()).isEqualTo(3 * ENTRY);
+  }
+
+  @Test
+  public void should_never_evict_last_put_entry() {
+    for (EvictionPolicy policy : EvictionPolicy.values()) {
+      evicted.clear();
+      WeightedTrackablesMap map = create(policy, ENTRY);
+      map.put("a", Collections.emptyList());
+      map.put("huge", Collections.nCopies(1000, mock(Trackable.class)));
+
+      assertThat(evicted).as(policy.name()).containsExactly("a");
+      assertThat(map.get("huge")).as(policy.name()).hasSize(1000);
+    }
+  }
+
+  @Test
+  public void should_update_weight_when_replacing() {
+    for (EvictionPolicy policy : EvictionPolicy.values()) {
+      WeightedTrackablesMap map = create(policy, 100 * ENTRY);
+      map.put("a", Collections.nCopies(3, mock(Trackable.class)));
+      map.put("a", Collections.emptyList());
+      assertThat(map.weight()).as(policy.name()).isEqualTo(ENTRY);
+      assertThat(map.size()).isEqualTo(1);
+
+      map.clear();
+      assertThat(map.weight()).isZero();
+      assertThat(map.containsKey("a")).isFalse();
+    }
+  }
+
+  @Test
+  public void tiny_lfu_should_keep_frequently_used_entries_during_scan() {
+    WeightedTrackablesMap map = create(EvictionPolicy.W_TINY_LFU, 200 * ENTRY);
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 100; i++) {
+        map.put("hot" + i, Collections.emptyList());
+        map.get("hot" + i);
+      }
+    }
+    for (int i = 0; i < 1000; i++) {
+      map.put("scan" + i, Collections.emptyList());
+    }
+
+    long hotRemaining = 0;
+    for (int i = 0; i < 100; i++) {
+      if (map.containsKey("hot" + i)) {
+        hotRemaining++;
+      }
+    }
+    // the few hot entries that were still in the window may lose against hot entries of the main space
+    assertThat(hotRemaining).isGreaterThanOrEqualTo(95);
+    assertThat(map.weight()).isLessThanOrEqualTo(200 * ENTRY);
+  }
+
+  @Test
+  public void lru_should_evict_frequently_used_entries_during_scan() {
+    WeightedTrackablesMap map = create(EvictionPolicy.LRU, 200 * ENTRY);
+    for (int i = 0; i < 100; i++) {
+      map.put("hot" + i, Collections.emptyList());
+    }
+    for (int i = 0; i < 1000; i++) {
+      map.put("scan" + i, Collections.emptyList());
+    }
+    assertThat(map.containsKey("hot0")).isFalse();
+  }
+
+  @Test
+  public void tiny_lfu_should_keep_all_entries_when_iterating() {
+    WeightedTrackablesMap map = create(EvictionPolicy.W_TINY_LFU, 50 * ENTRY);
+    for (int i = 0; i < 200; i++) {
+      map.put("file" + i, Collections.emptyList());
+      if (i % 3 == 0) {
+        map.get("file" + (i / 2));
+      }
+    }
+    Map<String, Collection<Trackable>> all = new HashMap<>();
+    map.forEach(all::put);
+    assertThat(all).hasSize(map.size());
+    assertThat(map.size() + evicted.size()).isEqualTo(200);
+    assertThat(map.weight()).isEqualTo(map.size() * ENTRY);
+  }
+
+  private WeightedTrackablesMap create(EvictionPolicy policy, long maxWeight) {
+    IssueTrackerCacheSettings settings = IssueTrackerCacheSettings.builder()
+      .setMaxWeight(maxWeight)
+      .setTrackableWeight(100)
+      .setEvictionPolicy(policy)
+      .build();
+    return WeightedTrackablesMap.create(settings, (file, trackables) -> evicted.add(file));
+  }
+}
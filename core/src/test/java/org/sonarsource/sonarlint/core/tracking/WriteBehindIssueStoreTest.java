@@ -0,0 +1,152 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteBehindIssueStoreTest {
+
+  private final IssueStore store = mock(IssueStore.class);
+  private final Logger logger = mock(Logger.class);
+  private final List<Runnable> writes = new ArrayList<>();
+  private final WriteBehindIssueStore writeBehind = new WriteBehindIssueStore(store, logger, 10, writes::add);
+
+  private final Collection<Trackable> trackables1 = Collections.singletonList(mock(Trackable.class));
+  private final Collection<Trackable> trackables2 = Collections.singletonList(mock(Trackable.class));
+
+  @Test
+  public void should_read_pending_writes_before_store() throws IOException {
+    writeBehind.save("file", trackables1);
+
+    assertThat(writeBehind.getPending("file")).isSameAs(trackables1);
+    assertThat(writeBehind.read("file")).isSameAs(trackables1);
+    assertThat(writeBehind.contains("file")).isTrue();
+    verify(store, never()).read(anyString());
+
+    runWrites();
+    verify(store).save("file", trackables1);
+    assertThat(writeBehind.getPending("file")).isNull();
+  }
+
+  @Test
+  public void should_coalesce_writes_of_same_file() throws IOException {
+    writeBehind.save("file", trackables1);
+    writeBehind.save("file", trackables2);
+    assertThat(writes).hasSize(1);
+
+    runWrites();
+    verify(store, times(1)).save(anyString(), any());
+    verify(store).save("file", trackables2);
+  }
+
+  @Test
+  public void should_fallback_to_store_when_nothing_pending() throws IOException {
+    when(store.read("file")).thenReturn(trackables1);
+    when(store.contains("file")).thenReturn(true);
+    assertThat(writeBehind.read("file")).isSameAs(trackables1);
+    assertThat(writeBehind.contains("file")).isTrue();
+  }
+
+  @Test
+  public void should_drop_pending_writes_on_clear() throws IOException {
+    writeBehind.save("file", trackables1);
+    writeBehind.clear();
+    runWrites();
+
+    verify(store).clear();
+    verify(store, never()).save(anyString(), any());
+  }
+
+  @Test
+  public void should_count_and_log_failures() throws IOException {
+    IOException exception = new IOException("disk full");
+    doThrow(exception).when(store).save("file", trackables1);
+    writeBehind.save("file", trackables1);
+    runWrites();
+
+    assertThat(writeBehind.failures()).isEqualTo(1);
+    verify(logger).error("Error persisting issues for file", exception);
+    assertThat(writeBehind.getPending("file")).isNull();
+  }
+
+  @Test
+  public void should_give_up_after_shutdown_deadline() {
+    writeBehind.save("file", trackables1);
+    assertThat(writeBehind.awaitPendingWrites(10, TimeUnit.MILLISECONDS)).isFalse();
+
+    writeBehind.shutdown(10, TimeUnit.MILLISECONDS);
+    verify(logger).error(eq("Timeout while persisting issues, 1 files were not persisted"), any());
+  }
+
+  @Test
+  public void should_wait_for_room_when_queue_is_full() throws Exception {
+    WriteBehindIssueStore small = new WriteBehindIssueStore(store, logger, 1, writes::add);
+    small.save("file1", trackables1);
+
+    CountDownLatch saved = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      small.save("file2", trackables2);
+      saved.countDown();
+    });
+    thread.start();
+    assertThat(saved.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+    runWrites();
+    assertThat(saved.await(5, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+    runWrites();
+    verify(store).save("file2", trackables2);
+  }
+
+  @Test
+  public void should_write_in_background() throws IOException {
+    WriteBehindIssueStore background = new WriteBehindIssueStore(store, logger, 10);
+    for (int i = 0; i < 50; i++) {
+      background.save("file" + i, trackables1);
+    }
+    assertThat(background.awaitPendingWrites(10, TimeUnit.SECONDS)).isTrue();
+    verify(store, times(50)).save(anyString(), eq(trackables1));
+    background.shutdown(1, TimeUnit.SECONDS);
+  }
+
+  private void runWrites() {
+    List<Runnable> toRun = new ArrayList<>(writes);
+    writes.clear();
+    toRun.forEach(Runnable::run);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ConcurrentUtilsTest {
+
+  private final ExecutorService executor = ConcurrentUtils.newFixedDaemonThreadPool("test-", 2);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void should_run_tasks_on_named_daemon_threads() {
+    CompletableFuture<Thread> future = CompletableFuture.supplyAsync(Thread::currentThread, executor);
+
+    ConcurrentUtils.awaitAll(Arrays.asList(future));
+
+    assertThat(future.join().getName()).startsWith("test-");
+    assertThat(future.join().isDaemon()).isTrue();
+  }
+
+  @Test
+  public void should_rethrow_failure_once_all_tasks_are_done() throws InterruptedException {
+    IllegalArgumentException failure = new IllegalArgumentException("failure");
+    CompletableFuture<Void> failed = CompletableFuture.runAsync(() -> {
+      throw failure;
+    }, executor);
+    CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, executor);
+
+    try {
+      ConcurrentUtils.awaitAll(Arrays.asList(failed, slow));
+      fail("Expected exception");
+    } catch (IllegalArgumentException e) {
+      assertThat(e).isSameAs(failure);
+    }
+    assertThat(slow).isDone();
+  }
+}
@@ -38,10 +38,12 @@ class DefaultClientInputFile implements ClientInputFile {
   private final String content;
   private final PathMatcher testMatcher;
   private final String sqLanguage;
+  private final Integer version;
 
-  public DefaultClientInputFile(URI uri, String content, @Nullable String testFilePattern, @Nullable String vsCodeLanguage) {
+  public DefaultClientInputFile(URI uri, String content, @Nullable Integer version, @Nullable String testFilePattern, @Nullable String vsCodeLanguage) {
     this.fileUri = uri;
     this.content = content;
+    this.version = version;
     this.sqLanguage = toSqLanguage(vsCodeLanguage);
     testMatcher = testFilePattern != null ? FileSystems.getDefault().getPathMatcher("glob:" + testFilePattern) : null;
 
@@ -72,6 +74,16 @@ class DefaultClientInputFile implements ClientInputFile {
     return content;
   }
 
+  /**
+   * Contents come from the editor, and may change between analyses without the file on disk being changed. The version of the document
+   * in the editor identifies them, when known.
+   */
+  @CheckForNull
+  @Override
+  public String contentVersion() {
+    return version != null ? version.toString() : null;
+  }
+
   @Override
   public InputStream inputStream() throws IOException {
     return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
@@ -47,6 +47,7 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.eclipse.lsp4j.CodeActionParams;
 import org.eclipse.lsp4j.CodeLens;
 import org.eclipse.lsp4j.CodeLensParams;
@@ -346,19 +347,21 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   public void didOpen(DidOpenTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
     languageIdPerFileURI.put(uri, params.getTextDocument().getLanguageId());
-    analyze(uri, params.getTextDocument().getText());
+    analyze(uri, params.getTextDocument().getText(), params.getTextDocument().getVersion());
   }
 
   @Override
   public void didChange(DidChangeTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
-    analyze(uri, params.getContentChanges().get(0).getText());
+    analyze(uri, params.getContentChanges().get(0).getText(), params.getTextDocument().getVersion());
   }
 
   @Override
   public void didClose(DidCloseTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
     languageIdPerFileURI.remove(uri);
+    // versions start over when the document is opened again
+    engine.invalidateFileMetadata(Collections.singletonList(Paths.get(uri).toString()));
     // Clear issues
     client.publishDiagnostics(newPublishDiagnostics(uri));
   }
@@ -366,7 +369,8 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   @Override
   public void didSave(DidSaveTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
-    analyze(uri, params.getText());
+    // no document version, contents are not cached
+    analyze(uri, params.getText(), null);
   }
 
   private static URI parseURI(String uriStr) {
@@ -379,14 +383,14 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     return uri;
   }
 
-  private void analyze(URI uri, String content) {
+  private void analyze(URI uri, String content, @Nullable Integer version) {
     Map<URI, PublishDiagnosticsParams> files = new HashMap<>();
     files.put(uri, newPublishDiagnostics(uri));
     Path baseDir = workspaceDir != null ? workspaceDir : Paths.get(uri).getParent();
     Objects.requireNonNull(baseDir);
     Objects.requireNonNull(engine);
     StandaloneAnalysisConfiguration configuration = new StandaloneAnalysisConfiguration(baseDir, baseDir.resolve(".sonarlint"),
-      Arrays.asList(new DefaultClientInputFile(uri, content, testFilePattern, languageIdPerFileURI.get(uri))),
+      Arrays.asList(new DefaultClientInputFile(uri, content, version, testFilePattern, languageIdPerFileURI.get(uri))),
       analyzerProperties != null ? analyzerProperties : Collections.emptyMap());
     debug("Analysis triggered on " + uri + " with configuration: \n" + configuration.toString());
     telemetry.analysisSubmitted();